@@ -0,0 +1,232 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+import static com.chess.engine.board.BitBoard.EMPTY;
+import static com.chess.engine.board.BitBoard.tileMask;
+
+// the tiles a knight, a king or a pawn attacks only depend on the tile it stands on
+// so they are worked out once for every tile when the class is loaded and then just looked up as a bitboard
+// the column checks that keep a piece from wrapping around the edge of the board happen here and only here
+//
+// the tiles a rook or a bishop attacks also depend on the pieces blocking its rays "magic bitboards"
+// only the blockers on the tiles of its rays "the relevant mask" matter, at most 12 tiles for a rook and 9 for a bishop
+// so there are at most 4096 different blocker sets per tile and we precompute the attacks of every one of them
+// to find the entry of a blocker set we multiply it by a "magic" number picked for that tile and keep the top bits of the product
+// the magic is chosen so that no two blocker sets with different attacks end up on the same entry
+// so a lookup is an and, a multiply and a shift however long the rays are
+// the magics were found once by trying random numbers with few bits set until one had no bad collisions
+// searching for them takes over a second so they are written out here and only the tables are filled when the class loads
+public final class AttackTables {
+
+    private static final int[] KNIGHT_OFFSETS = {-17, -15, -10, -6, 6, 10, 15, 17};
+    private static final int[] KING_OFFSETS = {-9, -8, -7, -1, 1, 7, 8, 9};
+    // white pawns attack up the board "towards tile 0" and black pawns down
+    private static final int[][] PAWN_ATTACK_OFFSETS = {{-9, -7}, {7, 9}};
+
+    private static final long[] KNIGHT_ATTACKS = initAttacks(KNIGHT_OFFSETS);
+    private static final long[] KING_ATTACKS = initAttacks(KING_OFFSETS);
+    private static final long[][] PAWN_ATTACKS = {initAttacks(PAWN_ATTACK_OFFSETS[0]), initAttacks(PAWN_ATTACK_OFFSETS[1])};
+
+    private static final int[] ROOK_DIRECTIONS = {-8, -1, 1, 8};
+    private static final int[] BISHOP_DIRECTIONS = {-9, -7, 7, 9};
+
+    private static final long[] ROOK_MAGICS = {
+            0x0080008420144000L, 0x0140001000402000L, 0x8100200100081040L, 0x0580100181040800L,
+            0x0480040002480180L, 0x020002001004C108L, 0x06002600180104ACL, 0x0A00010200804024L,
+            0x1102800320814002L, 0xC000808040002000L, 0x0202802000821000L, 0x4210800800801000L,
+            0x8008808044004800L, 0x0006002418100200L, 0x0A00800200010080L, 0x0202000208804114L,
+            0x0280044002200041L, 0x3010004020004008L, 0x0010002008040022L, 0x8000210008100102L,
+            0x60A2020004110820L, 0x0222008080040002L, 0x00C0840002085110L, 0x02004A0000810454L,
+            0x0080401080008020L, 0x0040200040100048L, 0x0006041200208040L, 0x2010100100210008L,
+            0x5090080080800400L, 0x0022002200042950L, 0x011010040002E108L, 0x0000240200009041L,
+            0x0010400020800080L, 0x0040401000402000L, 0x0200200080801000L, 0x4140080080801003L,
+            0x0000800400800800L, 0x0800040080800200L, 0x1008080284002110L, 0x00A001008A001444L,
+            0x3040002040908000L, 0x1000422010024000L, 0x0040402001010010L, 0x8000100008008080L,
+            0x0084008008028004L, 0x0002000204008080L, 0x0000088210040001L, 0x0280C12080520004L,
+            0x028700800C402B00L, 0x0180200040008080L, 0x80A0008020100080L, 0x0001012010008900L,
+            0x4000040108008180L, 0x000C000402008080L, 0x004B0002002C0900L, 0x0020D42040811200L,
+            0x8844520121004082L, 0x1109150082204001L, 0x0302000820408012L, 0x2081002208041001L,
+            0x0002000804201002L, 0x5101000A28040029L, 0x0100080112489004L, 0x02000E4400288102L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x4014281015002108L, 0x0060020882029000L, 0x1104440082102120L, 0x4004410020042802L,
+            0x0011104020140040L, 0x0006074460005020L, 0x48208E0820040201L, 0x0202050401042240L,
+            0x400C401014208AA0L, 0x01C020064A424100L, 0x0012304408424000L, 0x21008808510C0004L,
+            0x0020141420000024L, 0x0004009004202009L, 0x4002008410080450L, 0x2000088280B82000L,
+            0x4040002410828602L, 0x08448030810A1410L, 0x1010032104008110L, 0x0850810802084244L,
+            0x0804000202112040L, 0x4901008610009420L, 0x31A0402411082800L, 0x8402000107620200L,
+            0x2210311041126208L, 0x0295218018020400L, 0x2092010408104400L, 0x0004040000401080L,
+            0x0020404004010041L, 0x80448A0109080618L, 0x008084110A0A0200L, 0x204C00C000A70440L,
+            0x3010106441114400L, 0x0C94115400181000L, 0x1821403000020400L, 0x2000020082480080L,
+            0x2080408020020200L, 0x0020080040068040L, 0x20089D8888190802L, 0x000F820044408408L,
+            0x2084022006089000L, 0x22510101A0401020L, 0x40000A0802009408L, 0x140483C010420200L,
+            0x0449200208811408L, 0x0002220042000100L, 0x00281000D0800201L, 0x044200A519010200L,
+            0x0300421050080002L, 0x00C0540401080004L, 0x4801010088040034L, 0x8400000210540051L,
+            0x400400404822002CL, 0x2080070448020000L, 0x1B2082100A00A000L, 0x4002021802108000L,
+            0xC000248800901000L, 0x0000024100B01100L, 0x1902103044022100L, 0x0000004404228810L,
+            0x0101000008210100L, 0x0025000820089082L, 0x0008091010008120L, 0x9120024202040010L
+    };
+
+    // the tiles strictly between two tiles and the whole line through them, empty if they are not on a common rank, file or diagonal
+    private static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+    private static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final long[][] ROOK_ATTACKS = new long[BoardUtils.NUM_TILES][];
+    private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final long[][] BISHOP_ATTACKS = new long[BoardUtils.NUM_TILES][];
+    private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_TILES];
+
+    static {
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            initMagic(tile, ROOK_DIRECTIONS, ROOK_MAGICS[tile], ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initMagic(tile, BISHOP_DIRECTIONS, BISHOP_MAGICS[tile], BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+            initLines(tile, ROOK_DIRECTIONS);
+            initLines(tile, BISHOP_DIRECTIONS);
+        }
+    }
+
+    private AttackTables() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long knightAttacks(final int tileCoordinate) {
+        return KNIGHT_ATTACKS[tileCoordinate];
+    }
+
+    public static long kingAttacks(final int tileCoordinate) {
+        return KING_ATTACKS[tileCoordinate];
+    }
+
+    // the tiles a pawn of the given alliance attacks diagonally, not the tiles it can push to
+    public static long pawnAttacks(final int tileCoordinate, final Alliance alliance) {
+        return PAWN_ATTACKS[alliance.ordinal()][tileCoordinate];
+    }
+
+    // the tiles a rook attacks given the occupancy of the whole board, the first blocker of each ray is included
+    public static long rookAttacks(final int tileCoordinate, final long occupancy) {
+        return ROOK_ATTACKS[tileCoordinate][(int) (((occupancy & ROOK_MASKS[tileCoordinate]) * ROOK_MAGICS[tileCoordinate]) >>> ROOK_SHIFTS[tileCoordinate])];
+    }
+
+    public static long bishopAttacks(final int tileCoordinate, final long occupancy) {
+        return BISHOP_ATTACKS[tileCoordinate][(int) (((occupancy & BISHOP_MASKS[tileCoordinate]) * BISHOP_MAGICS[tileCoordinate]) >>> BISHOP_SHIFTS[tileCoordinate])];
+    }
+
+    public static long queenAttacks(final int tileCoordinate, final long occupancy) {
+        return rookAttacks(tileCoordinate, occupancy) | bishopAttacks(tileCoordinate, occupancy);
+    }
+
+    // used to tell whether a piece is pinned to its king and which tiles block a check
+    public static long between(final int firstTile, final int secondTile) {
+        return BETWEEN[firstTile][secondTile];
+    }
+
+    public static long line(final int firstTile, final int secondTile) {
+        return LINE[firstTile][secondTile];
+    }
+
+    // a leap is only kept if it stays on the board and does not move more than 2 columns "wrapping to the other edge"
+    private static long[] initAttacks(final int[] offsets) {
+        final long[] attacks = new long[BoardUtils.NUM_TILES];
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            for (final int offset : offsets) {
+                final int destination = tile + offset;
+                if (BoardUtils.isValidTileCoordinate(destination) &&
+                        Math.abs(destination % BoardUtils.NUM_TILES_PER_ROW - tile % BoardUtils.NUM_TILES_PER_ROW) <= 2) {
+                    attacks[tile] |= tileMask(destination);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    // fills the attack table of one tile, every blocker set is written to the entry its magic sends it to
+    private static void initMagic(final int tile,
+                                  final int[] directions,
+                                  final long magic,
+                                  final long[] masks,
+                                  final int[] shifts,
+                                  final long[][] attackTables) {
+        // the tiles on the edge of the board never matter, there is nothing behind them to block
+        final long mask = relevantMask(tile, directions);
+        final int shift = Long.SIZE - Long.bitCount(mask);
+        final long[] table = new long[1 << Long.bitCount(mask)];
+        final boolean[] filled = new boolean[table.length];
+        // going through every subset of the mask "the carry rippler trick" and walking the rays once for each
+        long blockers = EMPTY;
+        do {
+            final int index = (int) ((blockers * magic) >>> shift);
+            final long attacks = slidingAttacks(tile, blockers, directions);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic for tile " + tile);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != EMPTY);
+        masks[tile] = mask;
+        shifts[tile] = shift;
+        attackTables[tile] = table;
+    }
+
+    // walks every direction from the tile, each tile reached gets the tiles passed on the way and the full line of the direction
+    private static void initLines(final int tile, final int[] directions) {
+        for (final int direction : directions) {
+            final long line = tileMask(tile) |
+                    slidingAttacks(tile, EMPTY, new int[]{direction}) |
+                    slidingAttacks(tile, EMPTY, new int[]{-direction});
+            long passed = EMPTY;
+            int current = tile;
+            while (isOnBoard(current, current + direction)) {
+                current += direction;
+                BETWEEN[tile][current] = passed;
+                LINE[tile][current] = line;
+                passed |= tileMask(current);
+            }
+        }
+    }
+
+    private static long relevantMask(final int tile, final int[] directions) {
+        long mask = EMPTY;
+        for (final int direction : directions) {
+            int current = tile;
+            while (true) {
+                final int next = current + direction;
+                if (!isOnBoard(current, next)) {
+                    break;
+                }
+                // the last tile of the ray is dropped
+                if (!isOnBoard(next, next + direction)) {
+                    break;
+                }
+                mask |= tileMask(next);
+                current = next;
+            }
+        }
+        return mask;
+    }
+
+    // walking each direction until we leave the board, wrap around an edge or hit a piece "the chain effect"
+    private static long slidingAttacks(final int tile, final long occupancy, final int[] directions) {
+        long attacks = EMPTY;
+        for (final int direction : directions) {
+            int current = tile;
+            while (isOnBoard(current, current + direction)) {
+                current += direction;
+                attacks |= tileMask(current);
+                if ((occupancy & tileMask(current)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    // a single step of a ray stays on the board and moves at most one column
+    private static boolean isOnBoard(final int current, final int next) {
+        return BoardUtils.isValidTileCoordinate(next) &&
+                Math.abs(next % BoardUtils.NUM_TILES_PER_ROW - current % BoardUtils.NUM_TILES_PER_ROW) <= 1;
+    }
+}
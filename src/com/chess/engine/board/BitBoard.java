@@ -0,0 +1,111 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.piece.Piece;
+import com.chess.engine.piece.Piece.PieceType;
+
+import java.util.List;
+
+// a compact bitboard view of a board position
+// one long per piece type per alliance "12 longs" where bit number i is set if tile number i holds that piece
+// plus 3 occupancy masks (white, black and all) so that we can answer most board queries with bitwise operations
+// the bit numbering follows the same tile numbering as the Tile class (bit 0 is a8 and bit 63 is h1)
+public final class BitBoard {
+
+    public static final int NUM_PIECE_TYPES = PieceType.values().length;
+    public static final int NUM_PIECE_BITBOARDS = 2 * NUM_PIECE_TYPES;
+    public static final long EMPTY = 0L;
+
+    private final long[] pieceBitboards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+    private final long allOccupancy;
+
+    BitBoard(final List<Tile> gameBoard) {
+        this.pieceBitboards = new long[NUM_PIECE_BITBOARDS];
+        long white = EMPTY;
+        long black = EMPTY;
+        // looping through the tiles and setting the bit of each occupied tile on its piece's bitboard
+        for (final Tile tile : gameBoard) {
+            if (tile.isTileOccupied()) {
+                final Piece piece = tile.getPiece();
+                final long tileMask = tileMask(tile.getTileCoordinate());
+                this.pieceBitboards[index(piece.getPieceType(), piece.getPieceAlliance())] |= tileMask;
+                if (piece.getPieceAlliance().isWhite()) {
+                    white |= tileMask;
+                } else {
+                    black |= tileMask;
+                }
+            }
+        }
+        this.whiteOccupancy = white;
+        this.blackOccupancy = black;
+        this.allOccupancy = white | black;
+    }
+
+    // returns the bitboard of all the pieces of a given type and alliance
+    public long getPieces(final PieceType pieceType, final Alliance alliance) {
+        return this.pieceBitboards[index(pieceType, alliance)];
+    }
+
+    // returns the bitboard of all the tiles occupied by a given alliance
+    public long getOccupancy(final Alliance alliance) {
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    // returns the bitboard of all the occupied tiles on the board
+    public long getOccupancy() {
+        return this.allOccupancy;
+    }
+
+    public boolean isTileOccupied(final int tileCoordinate) {
+        return (this.allOccupancy & tileMask(tileCoordinate)) != 0;
+    }
+
+    // the pieces of the given alliance attacking a tile, the sliders see the board through the given occupancy
+    // we look outward from the tile with each piece's attack pattern and see if it reaches a piece of that type
+    // a pawn attacks the tile if a pawn of the other alliance standing on the tile would attack the pawn
+    public long attackersOf(final int tileCoordinate,
+                            final Alliance attackerAlliance,
+                            final long occupancy) {
+        final long queens = getPieces(PieceType.QUEEN, attackerAlliance);
+        return (AttackTables.pawnAttacks(tileCoordinate, attackerAlliance.isWhite() ? Alliance.BLACK : Alliance.WHITE) &
+                getPieces(PieceType.PAWN, attackerAlliance)) |
+                (AttackTables.knightAttacks(tileCoordinate) & getPieces(PieceType.KNIGHT, attackerAlliance)) |
+                (AttackTables.kingAttacks(tileCoordinate) & getPieces(PieceType.KING, attackerAlliance)) |
+                (AttackTables.bishopAttacks(tileCoordinate, occupancy) & (getPieces(PieceType.BISHOP, attackerAlliance) | queens)) |
+                (AttackTables.rookAttacks(tileCoordinate, occupancy) & (getPieces(PieceType.ROOK, attackerAlliance) | queens));
+    }
+
+    // returns the number of pieces of a given type and alliance still on the board
+    public int count(final PieceType pieceType, final Alliance alliance) {
+        return Long.bitCount(getPieces(pieceType, alliance));
+    }
+
+    // the position of a piece bitboard in the 12 longs "white pieces first then black pieces"
+    public static int index(final PieceType pieceType, final Alliance alliance) {
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    // a long with only the bit of the given tile set
+    public static long tileMask(final int tileCoordinate) {
+        return 1L << tileCoordinate;
+    }
+
+    // the coordinate of the lowest set bit, used to loop through the tiles of a bitboard
+    public static int firstTile(final long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            builder.append(isTileOccupied(i) ? " 1" : " .");
+            if ((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0) {
+                builder.append("\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -16,24 +16,49 @@ public class Board {
     // 2 collections to keep track of the white and black pieces on the board
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
+    // bitboard view of the same position "one long per piece type per alliance plus occupancy masks"
+    private final BitBoard bitBoard;
     // 3 variables to keep track of the black, white and current player on the board
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
     private final Player currentPlayer;
 
     private final Pawn enPassantPawn;
+    // castling rights as BoardUtils castle bits
+    private final int castlingRights;
+    // moves since the last capture or pawn move "for the fifty move rule" and the number of the full move, starting at 1
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+    // zobrist key of the position and the part of it made of the pieces and the side to move only
+    private final long zobristHash;
+    private final long placementHash;
+
+    // the standard legal moves of each side are only calculated the first time someone asks for them
+    // a lot of boards are only scored or thrown away and never need them
+    // the lists are immutable so two threads racing to fill them in would just calculate the same list twice
+    private Collection<Move> whiteStandardLegalMoves;
+    private Collection<Move> blackStandardLegalMoves;
 
     // private constructor calling the createGameBoard function to create a game board and store it in gameBoard
     private Board(final Builder builder) {
         this.gameBoard = createGameBoard(builder);
         this.whitePieces = calculateActivePieces(this.gameBoard, Alliance.WHITE);
         this.blackPieces = calculateActivePieces(this.gameBoard, Alliance.BLACK);
+        this.bitBoard = new BitBoard(this.gameBoard);
         this.enPassantPawn = builder.enPassantPawn;
-        final Collection<Move> whiteStandardLegalMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardLegalMoves = calculateLegalMoves(this.blackPieces);
+        this.castlingRights = calculateCastlingRights();
+        this.halfMoveClock = builder.halfMoveClock;
+        this.fullMoveNumber = builder.fullMoveNumber;
+        // a board made by Move.execute() gets its key from the board before the move
+        // only the pieces the move touched were xored in and out, anything else is hashed from scratch
+        this.placementHash = builder.hasTransitionHash ? builder.transitionHash :
+                Zobrist.calculatePlacementHash(this.gameBoard, builder.nextMoveMaker);
+        this.zobristHash = this.placementHash ^
+                Zobrist.castlingKey(this.castlingRights) ^
+                Zobrist.enPassantKey(this.enPassantPawn);
 
-        this.whitePlayer = new WhitePlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
     }
 
@@ -72,12 +97,43 @@ public class Board {
         return this.whitePieces;
     }
 
+    // getter method for the bitboard representation of the board
+    public BitBoard getBitBoard(){
+        return this.bitBoard;
+    }
+
+    // true if any piece of the given alliance attacks the tile, no moves are generated to find out
+    public boolean isSquareAttacked(final int tileCoordinate, final Alliance attackerAlliance) {
+        return this.bitBoard.attackersOf(tileCoordinate, attackerAlliance, this.bitBoard.getOccupancy()) != 0;
+    }
+
+    // the moves of the white pieces without the castles, calculated on first access
+    public Collection<Move> getWhiteStandardLegalMoves() {
+        Collection<Move> legalMoves = this.whiteStandardLegalMoves;
+        if (legalMoves == null) {
+            legalMoves = calculateLegalMoves(this.whitePieces);
+            this.whiteStandardLegalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
+    // the moves of the black pieces without the castles, calculated on first access
+    public Collection<Move> getBlackStandardLegalMoves() {
+        Collection<Move> legalMoves = this.blackStandardLegalMoves;
+        if (legalMoves == null) {
+            legalMoves = calculateLegalMoves(this.blackPieces);
+            this.blackStandardLegalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
     // a method to calculate the legal moves for a collection of pieces
     private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
         final List<Move> legalMoves = new ArrayList<>();
         // for loop to loop through all of the pieces in the collection
+        // every piece adds its moves straight into the one list
         for (final Piece piece : pieces) {
-            legalMoves.addAll(piece.calculateLegalMoves(this));
+            piece.calculateLegalMoves(this, legalMoves);
         }
         return ImmutableList.copyOf(legalMoves);
     }
@@ -115,12 +171,12 @@ public class Board {
         final Tile[] tiles = new Tile[BoardUtils.NUM_TILES];
         // a loop to create the 64 tiles and store them in the array of tiles
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            // createTile(i, builder.boardConfig.get(i)) creates a tile numbered i and sending to it the piece at the boardConfig of i
+            // createTile(i, builder.boardConfig[i]) creates a tile numbered i and sending to it the piece at the boardConfig of i
             // for example associating the tile id number 4 with a new King object to put a King on the tile number 4
             // we get the piece that's associated with tile id number 4 and create a tile from it
             // if there is no piece on it, it's gonna come back with null
             // and the createTile method is gonna automatically build an empty tile
-            tiles[i] = Tile.createTile(i, builder.boardConfig.get(i));
+            tiles[i] = Tile.createTile(i, builder.boardConfig[i]);
         }
         // returning an immutable copy of the array tiles
         return ImmutableList.copyOf(tiles);
@@ -132,41 +188,41 @@ public class Board {
 
         // Black layout
 
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new King(Alliance.BLACK, 4, true, true));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        builder.setPiece(new Pawn(Alliance.BLACK, 8));
-        builder.setPiece(new Pawn(Alliance.BLACK, 9));
-        builder.setPiece(new Pawn(Alliance.BLACK, 10));
-        builder.setPiece(new Pawn(Alliance.BLACK, 11));
-        builder.setPiece(new Pawn(Alliance.BLACK, 12));
-        builder.setPiece(new Pawn(Alliance.BLACK, 13));
-        builder.setPiece(new Pawn(Alliance.BLACK, 14));
-        builder.setPiece(new Pawn(Alliance.BLACK, 15));
+        builder.setPiece(Rook.createRook(Alliance.BLACK, 0));
+        builder.setPiece(Knight.createKnight(Alliance.BLACK, 1));
+        builder.setPiece(Bishop.createBishop(Alliance.BLACK, 2));
+        builder.setPiece(Queen.createQueen(Alliance.BLACK, 3));
+        builder.setPiece(King.createKing(Alliance.BLACK, 4, true, true));
+        builder.setPiece(Bishop.createBishop(Alliance.BLACK, 5));
+        builder.setPiece(Knight.createKnight(Alliance.BLACK, 6));
+        builder.setPiece(Rook.createRook(Alliance.BLACK, 7));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 8));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 9));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 10));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 11));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 12));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 13));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 14));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 15));
 
         // White Layout
 
-        builder.setPiece(new Pawn(Alliance.WHITE, 48));
-        builder.setPiece(new Pawn(Alliance.WHITE, 49));
-        builder.setPiece(new Pawn(Alliance.WHITE, 50));
-        builder.setPiece(new Pawn(Alliance.WHITE, 51));
-        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-        builder.setPiece(new Pawn(Alliance.WHITE, 53));
-        builder.setPiece(new Pawn(Alliance.WHITE, 54));
-        builder.setPiece(new Pawn(Alliance.WHITE, 55));
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new King(Alliance.WHITE, 60, true, true));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 48));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 49));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 50));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 51));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 52));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 53));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 54));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 55));
+        builder.setPiece(Rook.createRook(Alliance.WHITE, 56));
+        builder.setPiece(Knight.createKnight(Alliance.WHITE, 57));
+        builder.setPiece(Bishop.createBishop(Alliance.WHITE, 58));
+        builder.setPiece(Queen.createQueen(Alliance.WHITE, 59));
+        builder.setPiece(King.createKing(Alliance.WHITE, 60, true, true));
+        builder.setPiece(Bishop.createBishop(Alliance.WHITE, 61));
+        builder.setPiece(Knight.createKnight(Alliance.WHITE, 62));
+        builder.setPiece(Rook.createRook(Alliance.WHITE, 63));
         // Set White to move
         builder.setMoveMaker(Alliance.WHITE);
         return builder.build();
@@ -182,21 +238,98 @@ public class Board {
         return this.enPassantPawn;
     }
 
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getHalfMoveClock() {
+        return this.halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return this.fullMoveNumber;
+    }
+
+    // a 64 bit key of the position "pieces, side to move, castling rights and en passant file"
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    long getPlacementHash() {
+        return this.placementHash;
+    }
+
+    // a side can castle on a wing if its king is still castle capable on that wing
+    // and neither the king nor the rook of that wing have moved yet
+    private int calculateCastlingRights() {
+        int rights = 0;
+        if (isCastleCapable(Alliance.WHITE, 60, 63, true)) {
+            rights |= BoardUtils.WHITE_KING_SIDE_CASTLE;
+        }
+        if (isCastleCapable(Alliance.WHITE, 60, 56, false)) {
+            rights |= BoardUtils.WHITE_QUEEN_SIDE_CASTLE;
+        }
+        if (isCastleCapable(Alliance.BLACK, 4, 7, true)) {
+            rights |= BoardUtils.BLACK_KING_SIDE_CASTLE;
+        }
+        if (isCastleCapable(Alliance.BLACK, 4, 0, false)) {
+            rights |= BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+        }
+        return rights;
+    }
+
+    private boolean isCastleCapable(final Alliance alliance,
+                                    final int kingTile,
+                                    final int rookTile,
+                                    final boolean kingSide) {
+        final Piece king = getTile(kingTile).getPiece();
+        final Piece rook = getTile(rookTile).getPiece();
+        if (king == null || rook == null || !king.getPieceType().isKing() || !rook.getPieceType().isRook() ||
+                king.getPieceAlliance() != alliance || rook.getPieceAlliance() != alliance ||
+                !king.isFirstMove() || !rook.isFirstMove()) {
+            return false;
+        }
+        return kingSide ? ((King) king).isKingSideCastleCapable() : ((King) king).isQueenSideCastleCapable();
+    }
+
     // inner class to help us build an instance of the board totally immutable
     public static class Builder {
 
-        // a variable to map the tile id of a chess board to a given piece on that tile id
-        Map<Integer, Piece> boardConfig;
+        // the piece on every tile id of a chess board, null for an empty tile
+        final Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
+        int halfMoveClock;
+        int fullMoveNumber;
+        long transitionHash;
+        boolean hasTransitionHash;
 
         public Builder() {
-            this.boardConfig = new HashMap<>();
+            this.boardConfig = new Piece[BoardUtils.NUM_TILES];
+            this.fullMoveNumber = 1;
         }
 
-        // setting a specific piece in its position
+        // starts from the pieces, the move maker and the move counters of an existing board so a move only has to set the tiles it changes
+        // the en passant pawn is not copied, it only ever lasts for the move right after the jump
+        public Builder(final Board board) {
+            this();
+            for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+                this.boardConfig[i] = board.getTile(i).getPiece();
+            }
+            this.nextMoveMaker = board.currentPlayer().getAlliance();
+            this.halfMoveClock = board.getHalfMoveClock();
+            this.fullMoveNumber = board.getFullMoveNumber();
+        }
+
+        // setting a specific piece in its position, replacing whatever piece was there
         public Builder setPiece(final Piece piece) {
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = piece;
+            return this;
+        }
+
+        // emptying the tile a piece moved away from or was captured on
+        public Builder clearTile(final int tileCoordinate) {
+            this.boardConfig[tileCoordinate] = null;
             return this;
         }
 
@@ -213,5 +346,22 @@ public class Board {
         public void setEnPassantPawn(Pawn enPassantPawn) {
             this.enPassantPawn = enPassantPawn;
         }
+
+        public Builder setHalfMoveClock(final int halfMoveClock) {
+            this.halfMoveClock = halfMoveClock;
+            return this;
+        }
+
+        public Builder setFullMoveNumber(final int fullMoveNumber) {
+            this.fullMoveNumber = fullMoveNumber;
+            return this;
+        }
+
+        // the pieces and side to move part of the zobrist key, already worked out by the move that made this builder
+        Builder setTransitionHash(final long transitionHash) {
+            this.transitionHash = transitionHash;
+            this.hasTransitionHash = true;
+            return this;
+        }
     }
 }
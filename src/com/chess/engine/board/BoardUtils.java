@@ -21,6 +21,12 @@ public class BoardUtils {
     public static final boolean[] SECOND_RANK = initRow(48);
     public static final boolean[] FIRST_RANK = initRow(56);
 
+    // castling rights as bits of an int, see Board.getCastlingRights()
+    public static final int WHITE_KING_SIDE_CASTLE = 1;
+    public static final int WHITE_QUEEN_SIDE_CASTLE = 2;
+    public static final int BLACK_KING_SIDE_CASTLE = 4;
+    public static final int BLACK_QUEEN_SIDE_CASTLE = 8;
+
     private static final int START_TILE_INDEX = 0;
     public static final int NUM_TILES_PER_ROW = 8;
     public static final int NUM_TILES = 64;
@@ -93,28 +93,43 @@ public abstract class Move {
     // executing a move means that we are going to materialize a new board into existence that represents
     // the board that would exist if you made a move on the current board
     public Board execute() {
-        // materializing a new board
-        final Builder builder = new Builder();
-        // looping through the current player's pieces on the current board
-        for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-            // if the piece is not the moved piece we place it on the new board without change
-            if (!this.movedPiece.equals(piece)) {
-                builder.setPiece(piece);
-            }
-        }
-        // then we do the same thing for the opponent's pieces
-        // we won't do the if condition because the opponent won't have a moved piece
-        for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-            builder.setPiece(piece);
-        }
-        // move the moved piece
-        builder.setPiece(this.movedPiece.movePiece(this));
+        // materializing a new board starting from the pieces of the current board
+        // every piece the move does not touch stays where it is so only the changed tiles are set
+        final Builder builder = new Builder(this.board);
+        // the moved piece leaves its tile
+        builder.clearTile(this.movedPiece.getPiecePosition());
+        // move the moved piece, on an attack it replaces the attacked piece on the destination tile
+        final Piece movedPieceAfterMove = this.movedPiece.movePiece(this);
+        builder.setPiece(movedPieceAfterMove);
         // setting the move maker to the opponent for the new board
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+        setMoveCounters(builder);
+        // handing the new board its zobrist key so it does not have to hash every tile again
+        builder.setTransitionHash(calculateTransitionHash(movedPieceAfterMove));
         // returning the new board
         return builder.build();
     }
 
+    // the clock restarts on a capture or a pawn move and the full move number goes up once black has moved
+    void setMoveCounters(final Builder builder) {
+        builder.setHalfMoveClock(isAttack() || this.movedPiece.getPieceType() == Piece.PieceType.PAWN ?
+                0 : this.board.getHalfMoveClock() + 1);
+        builder.setFullMoveNumber(this.board.getFullMoveNumber() + (this.board.currentPlayer().getAlliance().isBlack() ? 1 : 0));
+    }
+
+    // the pieces and side to move part of the zobrist key of the board this move leads to
+    // starting from the key of the current board we only xor out and in the pieces this move touches
+    long calculateTransitionHash(final Piece movedPieceAfterMove) {
+        long hash = this.board.getPlacementHash() ^
+                Zobrist.blackToMoveKey() ^
+                Zobrist.pieceKey(this.movedPiece) ^
+                Zobrist.pieceKey(movedPieceAfterMove);
+        if (isAttack()) {
+            hash ^= Zobrist.pieceKey(getAttackedPiece());
+        }
+        return hash;
+    }
+
     // attack move for a major piece
     public static class MajorAttackMove extends AttackMove {
 
@@ -256,19 +271,15 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Builder builder = new Builder();
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece)) {
-                    builder.setPiece(piece);
-                }
-            }
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                if (!piece.equals(this.getAttackedPiece())) {
-                    builder.setPiece(piece);
-                }
-            }
-            builder.setPiece(this.movedPiece.movePiece(this));
+            final Builder builder = new Builder(this.board);
+            builder.clearTile(this.movedPiece.getPiecePosition());
+            // the attacked pawn is not on the destination tile but next to it
+            builder.clearTile(this.getAttackedPiece().getPiecePosition());
+            final Piece movedPieceAfterMove = this.movedPiece.movePiece(this);
+            builder.setPiece(movedPieceAfterMove);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            setMoveCounters(builder);
+            builder.setTransitionHash(calculateTransitionHash(movedPieceAfterMove));
             return builder.build();
         }
     }
@@ -298,17 +309,15 @@ public abstract class Move {
         public Board execute(){
 
             final Board pawnMovedBoard = this.decoratedMove.execute();
-            final Board.Builder builder = new Builder();
-            for (final Piece piece : pawnMovedBoard.currentPlayer().getActivePieces()){
-                if (!this.promotedPawn.equals(piece)){
-                    builder.setPiece(piece);
-                }
-            }
-            for (final Piece piece : pawnMovedBoard.currentPlayer().getOpponent().getActivePieces()){
-                builder.setPiece(piece);
-            }
-            builder.setPiece(this.promotedPawn.getPromotionPiece().movePiece(this));
+            // the pawn already stands on the promotion tile so the new piece just replaces it there
+            final Board.Builder builder = new Builder(pawnMovedBoard);
+            final Piece promotionPiece = this.promotedPawn.getPromotionPiece().movePiece(this);
+            builder.setPiece(promotionPiece);
             builder.setMoveMaker(pawnMovedBoard.currentPlayer().getAlliance());
+            // swapping the pawn on the promotion tile for the new piece in the key of the pawn moved board
+            builder.setTransitionHash(pawnMovedBoard.getPlacementHash() ^
+                    Zobrist.pieceKey(pawnMovedBoard.getTile(this.destinationCoordinate).getPiece()) ^
+                    Zobrist.pieceKey(promotionPiece));
             return builder.build();
         }
 
@@ -322,6 +331,10 @@ public abstract class Move {
             return this.decoratedMove.getAttackedPiece();
         }
 
+        public Piece getPromotionPiece(){
+            return this.promotedPawn.getPromotionPiece();
+        }
+
         @Override
         public String toString(){
             return "";
@@ -339,17 +352,9 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Builder builder = new Builder();
-            // looping through this board's current player's active pieces to move all the none moved pieces to the new board
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece)) {
-                    builder.setPiece(piece);
-                }
-            }
-            // moving all the opponent's active pieces to the new board
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                builder.setPiece(piece);
-            }
+            // copying the current board and only taking the pawn off its start tile
+            final Builder builder = new Builder(this.board);
+            builder.clearTile(this.movedPiece.getPiecePosition());
             // moving the moved piece to its new position after the jump
             final Pawn movedPawn = (Pawn) this.movedPiece.movePiece(this);
             builder.setPiece(movedPawn);
@@ -357,6 +362,8 @@ public abstract class Move {
             builder.setEnPassantPawn(movedPawn);
             // setting the new move maker to be the alliance of the opponent of the current player
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            setMoveCounters(builder);
+            builder.setTransitionHash(calculateTransitionHash(movedPawn));
             // returning the new board
             return builder.build();
         }
@@ -395,25 +402,23 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Builder builder = new Builder();
-            // looping through this board's current player's active pieces to move all the none moved pieces to the new board
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                // except for the moved piece and the castle rook
-                if (!this.movedPiece.equals(piece) && !this.castleRook.equals(piece)) {
-                    builder.setPiece(piece);
-                }
-            }
-            // moving all the opponent's active pieces to the new board
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                builder.setPiece(piece);
-            }
+            // copying the current board and taking the king and the castle rook off their start tiles
+            final Builder builder = new Builder(this.board);
+            builder.clearTile(this.movedPiece.getPiecePosition());
+            builder.clearTile(this.castleRookStart);
             // moved the king using the move piece method
-            builder.setPiece(this.movedPiece.movePiece(this));
-            // manually created a new rook in the castleRook's destination position
-            //TODO look into the first move on normal pieces
-            builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination));
+            final Piece movedKing = this.movedPiece.movePiece(this);
+            builder.setPiece(movedKing);
+            // putting the castle rook on its destination, it has moved now so it can never castle again
+            final Rook movedRook = Rook.createRook(this.castleRook.getPieceAlliance(), this.castleRookDestination, false);
+            builder.setPiece(movedRook);
             // setting the next move maker
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            setMoveCounters(builder);
+            // the rook moved as well so it gets xored out and in on top of the king
+            builder.setTransitionHash(calculateTransitionHash(movedKing) ^
+                    Zobrist.pieceKey(this.castleRook) ^
+                    Zobrist.pieceKey(movedRook));
             // returning the new board
             return builder.build();
         }
@@ -514,15 +519,19 @@ public abstract class Move {
         public static Move createMove(final Board board,
                                       final int currentCoordinate,
                                       final int destinationCoordinate) {
-            // looping through all the legal moves and returning the desired move
-            for (final Move move : board.getAllLegalMoves()) {
-                if (move.getCurrentCoordinate() == currentCoordinate &&
-                        move.getDestinationCoordinate() == destinationCoordinate) {
-                    return move;
-                }
-            }
+            // looking the move up by its tiles among the legal moves of the side to move
+            final Move move = board.currentPlayer().getLegalMove(currentCoordinate, destinationCoordinate);
             // if we couldn't find the move return null move
-            return NULL_MOVE;
+            return move != null ? move : NULL_MOVE;
+        }
+
+        // turns a move packed in the SearchBoard encoding back into one of the board's moves
+        // the searches only deal in ints so this is where their result becomes a Move again
+        public static Move createMove(final Board board,
+                                      final int encodedMove) {
+            final Move move = board.currentPlayer().getLegalMove(SearchBoard.getCurrentCoordinate(encodedMove),
+                    SearchBoard.getDestinationCoordinate(encodedMove));
+            return move != null && SearchBoard.encode(move) == encodedMove ? move : NULL_MOVE;
         }
     }
 
@@ -0,0 +1,693 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.piece.*;
+import com.chess.engine.piece.Piece.PieceType;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BitBoard.*;
+
+// a mutable board used by the search
+// instead of materializing a whole new Board for every move like Move.execute() does
+// we make the move on this board and then unmake it when we are done with that branch of the tree
+// every makeMove pushes what we need to restore the position "captured piece, castling rights and en passant tile"
+// on an undo stack so that unmakeMove can pop it back
+// the immutable Board stays the one used by the GUI and the rest of the API
+public final class SearchBoard {
+
+    // the deepest the undo stack can go and the most moves a single position can have
+    public static final int MAX_PLY = 128;
+    public static final int MAX_MOVES = 256;
+
+    // moves are packed in an int: bits 0-5 current coordinate, bits 6-11 destination coordinate, bits 12-15 flag
+    // a move fits in 16 bits so it can be kept in a transposition table entry or a short
+    // the flag of a promotion also holds the piece the pawn turns into in its 2 lowest bits
+    public static final int NO_MOVE = 0;
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    // a promotion to a queen, add the bits of another promotion piece to promote to it instead
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    public static final int EMPTY_TILE = -1;
+    public static final int NO_EN_PASSANT = -1;
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    // what we know about the legal moves of the position at each ply
+    private static final byte LEGAL_MOVES_UNKNOWN = 0;
+    private static final byte HAS_LEGAL_MOVES = 1;
+    private static final byte NO_LEGAL_MOVES = 2;
+    private static final Alliance[] ALLIANCES = Alliance.values();
+    // indexed by the 2 promotion bits of the flag, a queen is 0 so PROMOTION alone promotes to a queen
+    private static final PieceType[] PROMOTION_PIECE_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    // the rights that survive a move touching a given tile "moving the king or a rook or capturing a rook on its corner"
+    private static final int[] CASTLING_RIGHTS_MASK = initCastlingRightsMask();
+
+    private static final long WHITE_DOUBLE_PUSH_RANK = 0xFFL << 40;
+    private static final long BLACK_DOUBLE_PUSH_RANK = 0xFFL << 16;
+
+    // the position
+    private final long[] pieces;
+    private final long[] occupancy;
+    private final int[] mailbox;
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantTile;
+    private long zobristHash;
+
+    // the undo stack
+    private final int[] moveStack;
+    private final int[] capturedStack;
+    private final int[] castlingRightsStack;
+    private final int[] enPassantStack;
+    private final long[] zobristHashStack;
+    private int ply;
+    // the answer of hasLegalMoves for the position at each ply, a position is only checked once however often it is asked
+    // it stays valid while we search below that ply because unmaking the moves gives back the same position
+    private final byte[] legalMovesStack;
+
+    // scratch buffer used by hasLegalMoves and toSearchMove
+    private final int[] scratchMoves;
+
+    public SearchBoard(final Board board) {
+        this.pieces = new long[NUM_PIECE_BITBOARDS];
+        this.occupancy = new long[2];
+        this.mailbox = new int[BoardUtils.NUM_TILES];
+        this.moveStack = new int[MAX_PLY];
+        this.capturedStack = new int[MAX_PLY];
+        this.castlingRightsStack = new int[MAX_PLY];
+        this.enPassantStack = new int[MAX_PLY];
+        this.zobristHashStack = new long[MAX_PLY];
+        this.scratchMoves = new int[MAX_MOVES];
+        this.legalMovesStack = new byte[MAX_PLY + 1];
+        this.ply = 0;
+        // copying the pieces from the board's bitboards and filling the mailbox from them
+        final BitBoard bitBoard = board.getBitBoard();
+        Arrays.fill(this.mailbox, EMPTY_TILE);
+        for (final Alliance alliance : ALLIANCES) {
+            for (final PieceType pieceType : PIECE_TYPES) {
+                long bitboard = bitBoard.getPieces(pieceType, alliance);
+                while (bitboard != 0) {
+                    putPiece(index(pieceType, alliance), firstTile(bitboard));
+                    bitboard &= bitboard - 1;
+                }
+            }
+        }
+        this.sideToMove = board.currentPlayer().getAlliance().ordinal();
+        this.castlingRights = board.getCastlingRights();
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        this.enPassantTile = enPassantPawn != null ?
+                enPassantPawn.getPiecePosition() + 8 * enPassantPawn.getPieceAlliance().getOppositeDirection() :
+                NO_EN_PASSANT;
+        // putPiece already xored in the pieces
+        this.zobristHash ^= Zobrist.sideKey(getSideToMove()) ^
+                Zobrist.castlingKey(this.castlingRights) ^
+                Zobrist.enPassantKey(this.enPassantTile);
+    }
+
+    private static int[] initCastlingRightsMask() {
+        final int[] mask = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(mask, BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.WHITE_QUEEN_SIDE_CASTLE | BoardUtils.BLACK_KING_SIDE_CASTLE | BoardUtils.BLACK_QUEEN_SIDE_CASTLE);
+        mask[60] &= ~(BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.WHITE_QUEEN_SIDE_CASTLE);
+        mask[63] &= ~BoardUtils.WHITE_KING_SIDE_CASTLE;
+        mask[56] &= ~BoardUtils.WHITE_QUEEN_SIDE_CASTLE;
+        mask[4] &= ~(BoardUtils.BLACK_KING_SIDE_CASTLE | BoardUtils.BLACK_QUEEN_SIDE_CASTLE);
+        mask[7] &= ~BoardUtils.BLACK_KING_SIDE_CASTLE;
+        mask[0] &= ~BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+        return mask;
+    }
+
+    /* MOVE ENCODING */
+
+    public static int encode(final int currentCoordinate, final int destinationCoordinate, final int flag) {
+        return currentCoordinate | (destinationCoordinate << 6) | (flag << 12);
+    }
+
+    public static int getCurrentCoordinate(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int getDestinationCoordinate(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getFlag(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isAttack(final int move) {
+        return (getFlag(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (getFlag(move) & PROMOTION) != 0;
+    }
+
+    public static int encodePromotion(final int currentCoordinate,
+                                      final int destinationCoordinate,
+                                      final boolean isAttack,
+                                      final PieceType promotionPieceType) {
+        int flag = isAttack ? PROMOTION_CAPTURE : PROMOTION;
+        for (int i = 0; i < PROMOTION_PIECE_TYPES.length; i++) {
+            if (PROMOTION_PIECE_TYPES[i] == promotionPieceType) {
+                flag |= i;
+            }
+        }
+        return encode(currentCoordinate, destinationCoordinate, flag);
+    }
+
+    // the type of piece a promotion turns the pawn into, only valid if isPromotion is true
+    public static PieceType getPromotionPieceType(final int move) {
+        return PROMOTION_PIECE_TYPES[getFlag(move) & 0x3];
+    }
+
+    // packs one of the Move classes into this board's encoding
+    public static int encode(final Move move) {
+        final int flag;
+        if (move instanceof Move.KingSideCastleMove) {
+            flag = KING_CASTLE;
+        } else if (move instanceof Move.QueenSideCastleMove) {
+            flag = QUEEN_CASTLE;
+        } else if (move instanceof Move.PawnPromotion) {
+            return encodePromotion(move.getCurrentCoordinate(), move.getDestinationCoordinate(), move.isAttack(),
+                    ((Move.PawnPromotion) move).getPromotionPiece().getPieceType());
+        } else if (move instanceof Move.PawnEnPassantAttackMove) {
+            flag = EN_PASSANT;
+        } else if (move instanceof Move.PawnJump) {
+            flag = DOUBLE_PAWN_PUSH;
+        } else {
+            flag = move.isAttack() ? CAPTURE : QUIET;
+        }
+        return encode(move.getCurrentCoordinate(), move.getDestinationCoordinate(), flag);
+    }
+
+    // translates a Move made on the Board this search board was created from
+    // returns NO_MOVE if this board would not generate that move
+    public int toSearchMove(final Move move) {
+        final int searchMove = encode(move);
+        final int numMoves = generateMoves(this.scratchMoves);
+        for (int i = 0; i < numMoves; i++) {
+            if (this.scratchMoves[i] == searchMove) {
+                return searchMove;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /* POSITION QUERIES */
+
+    public Alliance getSideToMove() {
+        return ALLIANCES[this.sideToMove];
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantTile() {
+        return this.enPassantTile;
+    }
+
+    // the same zobrist key the Board of this position would have
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    public int getPly() {
+        return this.ply;
+    }
+
+    public long getPieces(final PieceType pieceType, final Alliance alliance) {
+        return this.pieces[index(pieceType, alliance)];
+    }
+
+    public long getOccupancy(final Alliance alliance) {
+        return this.occupancy[alliance.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return this.occupancy[WHITE] | this.occupancy[BLACK];
+    }
+
+    // returns the bitboard index of the piece on a tile "see BitBoard.index" or EMPTY_TILE
+    public int getPieceIndex(final int tileCoordinate) {
+        return this.mailbox[tileCoordinate];
+    }
+
+    public static PieceType getPieceType(final int pieceIndex) {
+        return PIECE_TYPES[pieceIndex % NUM_PIECE_TYPES];
+    }
+
+    public static Alliance getPieceAlliance(final int pieceIndex) {
+        return ALLIANCES[pieceIndex / NUM_PIECE_TYPES];
+    }
+
+    public boolean isInCheck(final Alliance alliance) {
+        final int side = alliance.ordinal();
+        return isTileAttacked(firstTile(this.pieces[side * NUM_PIECE_TYPES + KING]), side ^ 1);
+    }
+
+    public boolean isTileAttacked(final int tileCoordinate, final Alliance byAlliance) {
+        return isTileAttacked(tileCoordinate, byAlliance.ordinal());
+    }
+
+    // probing outward from the tile with each piece's attack pattern and looking for an enemy piece of that type
+    private boolean isTileAttacked(final int tileCoordinate, final int by) {
+        final int base = by * NUM_PIECE_TYPES;
+        final long allOccupancy = getOccupancy();
+        return (pawnAttacks(tileCoordinate, by ^ 1) & this.pieces[base + PAWN]) != 0 ||
+                (AttackTables.knightAttacks(tileCoordinate) & this.pieces[base + KNIGHT]) != 0 ||
+                (AttackTables.kingAttacks(tileCoordinate) & this.pieces[base + KING]) != 0 ||
+                (AttackTables.bishopAttacks(tileCoordinate, allOccupancy) & (this.pieces[base + BISHOP] | this.pieces[base + QUEEN])) != 0 ||
+                (AttackTables.rookAttacks(tileCoordinate, allOccupancy) & (this.pieces[base + ROOK] | this.pieces[base + QUEEN])) != 0;
+    }
+
+    // returns true if the side to move has at least one move that does not leave its king in check
+    // the search asks this for checkmate, stalemate and the evaluation of the same node so the answer is kept per ply
+    public boolean hasLegalMoves() {
+        final byte known = this.legalMovesStack[this.ply];
+        if (known != LEGAL_MOVES_UNKNOWN) {
+            return known == HAS_LEGAL_MOVES;
+        }
+        boolean hasLegalMoves = false;
+        final int numMoves = generateMoves(this.scratchMoves);
+        for (int i = 0; i < numMoves && !hasLegalMoves; i++) {
+            if (makeMove(this.scratchMoves[i])) {
+                unmakeMove();
+                hasLegalMoves = true;
+            }
+        }
+        this.legalMovesStack[this.ply] = hasLegalMoves ? HAS_LEGAL_MOVES : NO_LEGAL_MOVES;
+        return hasLegalMoves;
+    }
+
+    // checkmate or stalemate, the game is over
+    public boolean isEndGame() {
+        return !hasLegalMoves();
+    }
+
+    // looking at the check first, it is a few table lookups and most positions are not in check
+    public boolean isInCheckMate() {
+        return isInCheck(getSideToMove()) && !hasLegalMoves();
+    }
+
+    public boolean isInStaleMate() {
+        return !isInCheck(getSideToMove()) && !hasLegalMoves();
+    }
+
+    /* MOVE GENERATION */
+
+    // writes only the legal moves of the side to move into the given buffer and returns how many there are
+    public int generateLegalMoves(final int[] moves) {
+        final int numMoves = generateMoves(moves);
+        int numLegalMoves = 0;
+        for (int i = 0; i < numMoves; i++) {
+            if (makeMove(moves[i])) {
+                unmakeMove();
+                moves[numLegalMoves++] = moves[i];
+            }
+        }
+        return numLegalMoves;
+    }
+
+    // writes the pseudo legal moves of the side to move into the given buffer and returns how many there are
+    // a pseudo legal move may still leave the king in check, makeMove tells us that
+    public int generateMoves(final int[] moves) {
+        return generateMoves(this.sideToMove, moves);
+    }
+
+    private int generateMoves(final int us, final int[] moves) {
+        final int them = us ^ 1;
+        final int base = us * NUM_PIECE_TYPES;
+        final long own = this.occupancy[us];
+        final long enemy = this.occupancy[them];
+        final long empty = ~(own | enemy);
+        int count = 0;
+
+        /* PAWNS */
+        final int direction = ALLIANCES[us].getDirection() * 8;
+        long pawns = this.pieces[base + PAWN];
+        while (pawns != 0) {
+            final int from = firstTile(pawns);
+            pawns &= pawns - 1;
+            final int push = from + direction;
+            // for the sake of simplicity pawns are only promoted to a Queen just like Pawn.getPromotionPiece()
+            final boolean promotes = ALLIANCES[us].isPawnPromotionSquare(push);
+            if ((empty & tileMask(push)) != 0) {
+                moves[count++] = encode(from, push, promotes ? PROMOTION : QUIET);
+                final int jump = push + direction;
+                if (isPawnStartTile(from, us) && (empty & tileMask(jump)) != 0) {
+                    moves[count++] = encode(from, jump, DOUBLE_PAWN_PUSH);
+                }
+            }
+            long attacks = pawnAttacks(from, us) & enemy;
+            while (attacks != 0) {
+                moves[count++] = encode(from, firstTile(attacks), promotes ? PROMOTION_CAPTURE : CAPTURE);
+                attacks &= attacks - 1;
+            }
+            if (us == this.sideToMove && this.enPassantTile != NO_EN_PASSANT &&
+                    (pawnAttacks(from, us) & tileMask(this.enPassantTile)) != 0) {
+                moves[count++] = encode(from, this.enPassantTile, EN_PASSANT);
+            }
+        }
+
+        /* KNIGHTS, BISHOPS, ROOKS, QUEENS AND THE KING */
+        final long allOccupancy = own | enemy;
+        for (int type = KNIGHT; type <= KING; type++) {
+            long bitboard = this.pieces[base + type];
+            while (bitboard != 0) {
+                final int from = firstTile(bitboard);
+                bitboard &= bitboard - 1;
+                long attacks = attacks(type, from, allOccupancy) & ~own;
+                while (attacks != 0) {
+                    final int to = firstTile(attacks);
+                    attacks &= attacks - 1;
+                    moves[count++] = encode(from, to, (enemy & tileMask(to)) != 0 ? CAPTURE : QUIET);
+                }
+            }
+        }
+
+        /* CASTLES */
+        if (canCastleKingSide(us)) {
+            moves[count++] = us == WHITE ? encode(60, 62, KING_CASTLE) : encode(4, 6, KING_CASTLE);
+        }
+        if (canCastleQueenSide(us)) {
+            moves[count++] = us == WHITE ? encode(60, 58, QUEEN_CASTLE) : encode(4, 2, QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    // writes only the captures, en passant captures and promotions of the side to move, used by the quiescence search
+    public int generateCaptures(final int[] moves) {
+        final int us = this.sideToMove;
+        final int base = us * NUM_PIECE_TYPES;
+        final long own = this.occupancy[us];
+        final long enemy = this.occupancy[us ^ 1];
+        final long empty = ~(own | enemy);
+        int count = 0;
+
+        final int direction = ALLIANCES[us].getDirection() * 8;
+        long pawns = this.pieces[base + PAWN];
+        while (pawns != 0) {
+            final int from = firstTile(pawns);
+            pawns &= pawns - 1;
+            final int push = from + direction;
+            final boolean promotes = ALLIANCES[us].isPawnPromotionSquare(push);
+            if (promotes && (empty & tileMask(push)) != 0) {
+                moves[count++] = encode(from, push, PROMOTION);
+            }
+            long attacks = pawnAttacks(from, us) & enemy;
+            while (attacks != 0) {
+                moves[count++] = encode(from, firstTile(attacks), promotes ? PROMOTION_CAPTURE : CAPTURE);
+                attacks &= attacks - 1;
+            }
+            if (this.enPassantTile != NO_EN_PASSANT && (pawnAttacks(from, us) & tileMask(this.enPassantTile)) != 0) {
+                moves[count++] = encode(from, this.enPassantTile, EN_PASSANT);
+            }
+        }
+
+        final long allOccupancy = own | enemy;
+        for (int type = KNIGHT; type <= KING; type++) {
+            long bitboard = this.pieces[base + type];
+            while (bitboard != 0) {
+                final int from = firstTile(bitboard);
+                bitboard &= bitboard - 1;
+                long attacks = attacks(type, from, allOccupancy) & enemy;
+                while (attacks != 0) {
+                    moves[count++] = encode(from, firstTile(attacks), CAPTURE);
+                    attacks &= attacks - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    // counts the pseudo legal moves of an alliance without writing them anywhere, used for the mobility score
+    public int countMoves(final Alliance alliance) {
+        final int us = alliance.ordinal();
+        final int them = us ^ 1;
+        final int base = us * NUM_PIECE_TYPES;
+        final long own = this.occupancy[us];
+        final long enemy = this.occupancy[them];
+        final long empty = ~(own | enemy);
+        final long pawns = this.pieces[base + PAWN];
+        int count = 0;
+        // pawn pushes and jumps can be counted for all the pawns at once by shifting the pawn bitboard
+        if (us == WHITE) {
+            final long pushes = (pawns >>> 8) & empty;
+            count += Long.bitCount(pushes) + Long.bitCount(((pushes & WHITE_DOUBLE_PUSH_RANK) >>> 8) & empty);
+        } else {
+            final long pushes = (pawns << 8) & empty;
+            count += Long.bitCount(pushes) + Long.bitCount(((pushes & BLACK_DOUBLE_PUSH_RANK) << 8) & empty);
+        }
+        long bitboard = pawns;
+        while (bitboard != 0) {
+            final int from = firstTile(bitboard);
+            bitboard &= bitboard - 1;
+            final long attacks = pawnAttacks(from, us);
+            count += Long.bitCount(attacks & enemy);
+            if (us == this.sideToMove && this.enPassantTile != NO_EN_PASSANT && (attacks & tileMask(this.enPassantTile)) != 0) {
+                count++;
+            }
+        }
+        final long allOccupancy = own | enemy;
+        for (int type = KNIGHT; type <= KING; type++) {
+            bitboard = this.pieces[base + type];
+            while (bitboard != 0) {
+                count += Long.bitCount(attacks(type, firstTile(bitboard), allOccupancy) & ~own);
+                bitboard &= bitboard - 1;
+            }
+        }
+        if (canCastleKingSide(us)) {
+            count++;
+        }
+        if (canCastleQueenSide(us)) {
+            count++;
+        }
+        return count;
+    }
+
+    private boolean canCastleKingSide(final int us) {
+        final long allOccupancy = getOccupancy();
+        if (us == WHITE) {
+            return (this.castlingRights & BoardUtils.WHITE_KING_SIDE_CASTLE) != 0 &&
+                    (allOccupancy & (tileMask(61) | tileMask(62))) == 0 &&
+                    !isTileAttacked(60, BLACK) && !isTileAttacked(61, BLACK) && !isTileAttacked(62, BLACK);
+        }
+        return (this.castlingRights & BoardUtils.BLACK_KING_SIDE_CASTLE) != 0 &&
+                (allOccupancy & (tileMask(5) | tileMask(6))) == 0 &&
+                !isTileAttacked(4, WHITE) && !isTileAttacked(5, WHITE) && !isTileAttacked(6, WHITE);
+    }
+
+    private boolean canCastleQueenSide(final int us) {
+        final long allOccupancy = getOccupancy();
+        if (us == WHITE) {
+            return (this.castlingRights & BoardUtils.WHITE_QUEEN_SIDE_CASTLE) != 0 &&
+                    (allOccupancy & (tileMask(57) | tileMask(58) | tileMask(59))) == 0 &&
+                    !isTileAttacked(60, BLACK) && !isTileAttacked(59, BLACK) && !isTileAttacked(58, BLACK);
+        }
+        return (this.castlingRights & BoardUtils.BLACK_QUEEN_SIDE_CASTLE) != 0 &&
+                (allOccupancy & (tileMask(1) | tileMask(2) | tileMask(3))) == 0 &&
+                !isTileAttacked(4, WHITE) && !isTileAttacked(3, WHITE) && !isTileAttacked(2, WHITE);
+    }
+
+    private static boolean isPawnStartTile(final int tileCoordinate, final int side) {
+        return side == WHITE ? BoardUtils.SECOND_RANK[tileCoordinate] : BoardUtils.SEVENTH_RANK[tileCoordinate];
+    }
+
+    /* MAKE AND UNMAKE */
+
+    // makes a pseudo legal move on the board
+    // if the move leaves the mover's king in check it is taken back straight away and we return false
+    public boolean makeMove(final int move) {
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int flag = getFlag(move);
+        final int us = this.sideToMove;
+        final int movedPiece = this.mailbox[from];
+
+        // pushing what we need to take the move back
+        this.moveStack[this.ply] = move;
+        this.castlingRightsStack[this.ply] = this.castlingRights;
+        this.enPassantStack[this.ply] = this.enPassantTile;
+        this.zobristHashStack[this.ply] = this.zobristHash;
+
+        int capturedPiece = EMPTY_TILE;
+        if (flag == EN_PASSANT) {
+            final int capturedTile = to + 8 * ALLIANCES[us].getOppositeDirection();
+            capturedPiece = this.mailbox[capturedTile];
+            removePiece(capturedTile);
+        } else if (this.mailbox[to] != EMPTY_TILE) {
+            capturedPiece = this.mailbox[to];
+            removePiece(to);
+        }
+        this.capturedStack[this.ply] = capturedPiece;
+        this.ply++;
+        this.legalMovesStack[this.ply] = LEGAL_MOVES_UNKNOWN;
+
+        removePiece(from);
+        putPiece((flag & PROMOTION) != 0 ? us * NUM_PIECE_TYPES + getPromotionPieceType(move).ordinal() : movedPiece, to);
+
+        if (flag == KING_CASTLE) {
+            removePiece(to + 1);
+            putPiece(us * NUM_PIECE_TYPES + ROOK, to - 1);
+        } else if (flag == QUEEN_CASTLE) {
+            removePiece(to - 2);
+            putPiece(us * NUM_PIECE_TYPES + ROOK, to + 1);
+        }
+
+        // the pieces were xored in and out by putPiece and removePiece, the rest of the key is swapped here
+        this.zobristHash ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantTile);
+        this.castlingRights &= CASTLING_RIGHTS_MASK[from] & CASTLING_RIGHTS_MASK[to];
+        this.enPassantTile = flag == DOUBLE_PAWN_PUSH ? (from + to) / 2 : NO_EN_PASSANT;
+        this.sideToMove = us ^ 1;
+        this.zobristHash ^= Zobrist.castlingKey(this.castlingRights) ^
+                Zobrist.enPassantKey(this.enPassantTile) ^
+                Zobrist.blackToMoveKey();
+
+        if (isInCheck(ALLIANCES[us])) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    // takes back the last move made on the board
+    public void unmakeMove() {
+        this.ply--;
+        final int move = this.moveStack[this.ply];
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int flag = getFlag(move);
+        final int us = this.sideToMove ^ 1;
+
+        final int movedPiece = (flag & PROMOTION) != 0 ? us * NUM_PIECE_TYPES + PAWN : this.mailbox[to];
+        removePiece(to);
+        putPiece(movedPiece, from);
+
+        if (flag == KING_CASTLE) {
+            removePiece(to - 1);
+            putPiece(us * NUM_PIECE_TYPES + ROOK, to + 1);
+        } else if (flag == QUEEN_CASTLE) {
+            removePiece(to + 1);
+            putPiece(us * NUM_PIECE_TYPES + ROOK, to - 2);
+        }
+
+        final int capturedPiece = this.capturedStack[this.ply];
+        if (capturedPiece != EMPTY_TILE) {
+            putPiece(capturedPiece, flag == EN_PASSANT ? to + 8 * ALLIANCES[us].getOppositeDirection() : to);
+        }
+
+        this.castlingRights = this.castlingRightsStack[this.ply];
+        this.enPassantTile = this.enPassantStack[this.ply];
+        this.zobristHash = this.zobristHashStack[this.ply];
+        this.sideToMove = us;
+    }
+
+    private void putPiece(final int pieceIndex, final int tileCoordinate) {
+        final long tileMask = tileMask(tileCoordinate);
+        this.pieces[pieceIndex] |= tileMask;
+        this.occupancy[pieceIndex / NUM_PIECE_TYPES] |= tileMask;
+        this.mailbox[tileCoordinate] = pieceIndex;
+        this.zobristHash ^= Zobrist.pieceKey(pieceIndex, tileCoordinate);
+    }
+
+    private void removePiece(final int tileCoordinate) {
+        final int pieceIndex = this.mailbox[tileCoordinate];
+        final long tileMask = tileMask(tileCoordinate);
+        this.pieces[pieceIndex] &= ~tileMask;
+        this.occupancy[pieceIndex / NUM_PIECE_TYPES] &= ~tileMask;
+        this.mailbox[tileCoordinate] = EMPTY_TILE;
+        this.zobristHash ^= Zobrist.pieceKey(pieceIndex, tileCoordinate);
+    }
+
+    /* BACK TO THE IMMUTABLE BOARD */
+
+    // materializes the current position as an immutable Board
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            final int pieceIndex = this.mailbox[tile];
+            if (pieceIndex != EMPTY_TILE) {
+                builder.setPiece(createPiece(pieceIndex, tile));
+            }
+        }
+        builder.setMoveMaker(getSideToMove());
+        if (this.enPassantTile != NO_EN_PASSANT) {
+            final int pawnTile = this.enPassantTile + 8 * ALLIANCES[this.sideToMove].getOppositeDirection();
+            builder.setEnPassantPawn((Pawn) createPiece(this.mailbox[pawnTile], pawnTile));
+        }
+        return builder.build();
+    }
+
+    private Piece createPiece(final int pieceIndex, final int tile) {
+        final Alliance alliance = getPieceAlliance(pieceIndex);
+        switch (getPieceType(pieceIndex)) {
+            case PAWN:
+                return Pawn.createPawn(alliance, tile);
+            case KNIGHT:
+                return Knight.createKnight(alliance, tile);
+            case BISHOP:
+                return Bishop.createBishop(alliance, tile);
+            case ROOK:
+                return Rook.createRook(alliance, tile, CASTLING_RIGHTS_MASK[tile] != 15 &&
+                        (this.castlingRights & ~CASTLING_RIGHTS_MASK[tile]) != 0);
+            case QUEEN:
+                return Queen.createQueen(alliance, tile);
+            default:
+                final boolean kingSide = (this.castlingRights & (alliance.isWhite() ? BoardUtils.WHITE_KING_SIDE_CASTLE : BoardUtils.BLACK_KING_SIDE_CASTLE)) != 0;
+                final boolean queenSide = (this.castlingRights & (alliance.isWhite() ? BoardUtils.WHITE_QUEEN_SIDE_CASTLE : BoardUtils.BLACK_QUEEN_SIDE_CASTLE)) != 0;
+                return King.createKing(alliance, tile, kingSide || queenSide, false, kingSide, queenSide);
+        }
+    }
+
+    /* ATTACK PATTERNS */
+
+    private static long attacks(final int pieceType, final int tileCoordinate, final long allOccupancy) {
+        if (pieceType == KNIGHT) {
+            return AttackTables.knightAttacks(tileCoordinate);
+        } else if (pieceType == BISHOP) {
+            return AttackTables.bishopAttacks(tileCoordinate, allOccupancy);
+        } else if (pieceType == ROOK) {
+            return AttackTables.rookAttacks(tileCoordinate, allOccupancy);
+        } else if (pieceType == QUEEN) {
+            return AttackTables.queenAttacks(tileCoordinate, allOccupancy);
+        }
+        return AttackTables.kingAttacks(tileCoordinate);
+    }
+
+    private static long pawnAttacks(final int tileCoordinate, final int side) {
+        return AttackTables.pawnAttacks(tileCoordinate, ALLIANCES[side]);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            final int pieceIndex = this.mailbox[i];
+            final String tileText = pieceIndex == EMPTY_TILE ? "-" : getPieceAlliance(pieceIndex).isBlack() ?
+                    getPieceType(pieceIndex).toString().toLowerCase() : getPieceType(pieceIndex).toString();
+            builder.append(String.format("%3s", tileText));
+            if ((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0) {
+                builder.append("\n");
+            }
+        }
+        return builder.toString();
+    }
+}
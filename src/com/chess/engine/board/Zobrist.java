@@ -0,0 +1,97 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.piece.Pawn;
+import com.chess.engine.piece.Piece;
+
+import java.util.List;
+import java.util.Random;
+
+// Zobrist hashing gives every (piece, tile) pair, the side to move, every set of castling rights
+// and every en passant file its own random 64 bit number
+// the key of a position is the xor of the numbers of everything that is true in it
+// since xor undoes itself a move only has to xor out what it changes and xor in the new state
+public final class Zobrist {
+
+    // a fixed seed so that keys stay the same from one run to the next
+    private static final long SEED = 0x4A4348455353L;
+
+    private static final long[][] PIECE_KEYS = new long[BitBoard.NUM_PIECE_BITBOARDS][BoardUtils.NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for (final long[] pieceKeys : PIECE_KEYS) {
+            for (int i = 0; i < pieceKeys.length; i++) {
+                pieceKeys[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long pieceKey(final int pieceIndex, final int tileCoordinate) {
+        return PIECE_KEYS[pieceIndex][tileCoordinate];
+    }
+
+    public static long pieceKey(final Piece piece) {
+        return PIECE_KEYS[BitBoard.index(piece.getPieceType(), piece.getPieceAlliance())][piece.getPiecePosition()];
+    }
+
+    public static long sideKey(final Alliance sideToMove) {
+        return sideToMove.isBlack() ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+    public static long blackToMoveKey() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    // only the file of the en passant tile matters
+    public static long enPassantKey(final int enPassantTile) {
+        return enPassantTile == SearchBoard.NO_EN_PASSANT ? 0L : EN_PASSANT_KEYS[enPassantTile % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    public static long enPassantKey(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : EN_PASSANT_KEYS[enPassantPawn.getPiecePosition() % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    // the key of the pieces and the side to move, calculated from scratch by going through all the tiles
+    static long calculatePlacementHash(final List<Tile> gameBoard, final Alliance sideToMove) {
+        long hash = sideKey(sideToMove);
+        for (final Tile tile : gameBoard) {
+            if (tile.isTileOccupied()) {
+                hash ^= pieceKey(tile.getPiece());
+            }
+        }
+        return hash;
+    }
+
+    // the full key of a board calculated from scratch
+    public static long calculateHash(final Board board) {
+        long hash = sideKey(board.currentPlayer().getAlliance()) ^
+                castlingKey(board.getCastlingRights()) ^
+                enPassantKey(board.getEnPassantPawn());
+        for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            final Tile tile = board.getTile(i);
+            if (tile.isTileOccupied()) {
+                hash ^= pieceKey(tile.getPiece());
+            }
+        }
+        return hash;
+    }
+}
@@ -4,10 +4,7 @@ import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.google.common.collect.ImmutableList;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import static com.chess.engine.board.Move.*;
@@ -16,20 +13,29 @@ public class Pawn extends Piece {
 
     private final static int[] CANDIDATE_MOVE_COORDINATE = {7, 8, 9, 16};
 
-    public Pawn(final Alliance pieceAlliance, final int piecePosition) {
-        super(PieceType.PAWN, piecePosition, pieceAlliance, true);
-    }
+    // every pawn there can ever be, shared by all the boards
+    private static final Pawn[] ALL_POSSIBLE_PAWNS = createAllPossiblePieces(new Pawn[NUM_POSSIBLE_PIECES], Pawn::new);
 
-    public Pawn(final Alliance pieceAlliance,
-                final int piecePosition,
-                final boolean isFirstMove) {
+    private Pawn(final Alliance pieceAlliance,
+                 final int piecePosition,
+                 final boolean isFirstMove) {
         super(PieceType.PAWN, piecePosition, pieceAlliance, isFirstMove);
     }
 
+    // a pawn that has not moved yet
+    public static Pawn createPawn(final Alliance pieceAlliance, final int piecePosition) {
+        return createPawn(pieceAlliance, piecePosition, true);
+    }
+
+    public static Pawn createPawn(final Alliance pieceAlliance,
+                                  final int piecePosition,
+                                  final boolean isFirstMove) {
+        return ALL_POSSIBLE_PAWNS[possiblePieceIndex(pieceAlliance, piecePosition, isFirstMove)];
+    }
+
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
+    public void calculateLegalMoves(final Board board, final List<Move> legalMoves) {
 
-        final List<Move> legalMoves = new ArrayList<>(); // an Array list to store the legal moves
 
         for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATE) {
             // applying the offset to the Pawn's current position (for White applying -8 and for Black applying +8)
@@ -140,13 +146,12 @@ public class Pawn extends Piece {
                 }
             }
         }
-        return ImmutableList.copyOf(legalMoves);
     }
 
-    // a method to create a new Piece just like the current piece but with a new position "moved piece"
+    // a method to get the Piece just like the current piece but with a new position "moved piece"
     @Override
     public Pawn movePiece(final Move move) {
-        return new Pawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return createPawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     // toString to print out the letter corresponding to this specific piece on the chess board
@@ -158,6 +163,6 @@ public class Pawn extends Piece {
     // for the sake of simplicity and that its 98% of the time the pawn promotion is directly to a Queen
     // we will set the pawn promotion to a Queen by default
     public Piece getPromotionPiece(){
-        return new Queen(this.pieceAlliance, this.piecePosition, false);
+        return Queen.createQueen(this.pieceAlliance, this.piecePosition, false);
     }
 }
@@ -3,9 +3,13 @@ package com.chess.engine.piece;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public abstract class Piece {
 
@@ -15,6 +19,9 @@ public abstract class Piece {
     protected final boolean isFirstMove; // a boolean telling us whether is it a piece's first move or not
     private final int cachedHashCode;
 
+    // the number of pieces of one type there can ever be "2 alliances, first move or not and 64 positions"
+    static final int NUM_POSSIBLE_PIECES = 2 * 2 * BoardUtils.NUM_TILES;
+
     Piece(final PieceType pieceType,
           final int piecePosition,
           final Alliance pieceAlliance,
@@ -34,28 +41,36 @@ public abstract class Piece {
         return result;
     }
 
-    // equals method to find if 2 pieces are the same or not
-    // b1.equals(b1);
+    // every piece is one of the shared instances created up front by its class "see createAllPossiblePieces"
+    // two equal pieces are always the same object so equals is left as the identity check of Object
+    // and the hash code is worked out once when the piece is created
     @Override
-    public boolean equals(final Object other) {
-        // if their reference is the same then they are the same object
-        if (this == other) {
-            return true;
-        }
-        // if the other Object is not an instance of the class Piece then they cannot be the same
-        if (!(other instanceof Piece)) {
-            return false;
+    public int hashCode() {
+        return this.cachedHashCode;
+    }
+
+    // where a piece is kept in the array of all the possible pieces of its type
+    static int possiblePieceIndex(final Alliance pieceAlliance,
+                                  final int piecePosition,
+                                  final boolean isFirstMove) {
+        return (pieceAlliance.ordinal() * 2 + (isFirstMove ? 1 : 0)) * BoardUtils.NUM_TILES + piecePosition;
+    }
+
+    // creates every piece of one type there can ever be, once when its class is loaded
+    // moving or placing a piece then just looks one up instead of allocating a new one
+    static <T extends Piece> T[] createAllPossiblePieces(final T[] pieces,
+                                                         final PieceFactory<T> pieceFactory) {
+        for (final Alliance alliance : Alliance.values()) {
+            for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
+                pieces[possiblePieceIndex(alliance, position, true)] = pieceFactory.create(alliance, position, true);
+                pieces[possiblePieceIndex(alliance, position, false)] = pieceFactory.create(alliance, position, false);
+            }
         }
-        // now that we know that the other Object is an instance of Piece we can cast it into Piece
-        final Piece otherPiece = (Piece) other;
-        // and return true "that they are the same piece" if and only if all the following conditions are true
-        return piecePosition == otherPiece.getPiecePosition() && pieceType == otherPiece.getPieceType() &&
-                pieceAlliance == otherPiece.getPieceAlliance() && isFirstMove == otherPiece.isFirstMove;
+        return pieces;
     }
 
-    @Override
-    public int hashCode() {
-        return this.cachedHashCode;
+    interface PieceFactory<T extends Piece> {
+        T create(Alliance pieceAlliance, int piecePosition, boolean isFirstMove);
     }
 
     // method to return the current piece position
@@ -82,10 +97,18 @@ public abstract class Piece {
         return this.pieceType.getPieceValue();
     }
 
-    // an abstract method carrying a collection of all the legal moves for every piece i.e. Knight, Queen ...etc
+    // returns a collection of all the legal moves for this piece i.e. Knight, Queen ...etc
     // a collection is a general term that can refer to any data structure or group of data structures used to store and manipulate a set of items
     // while a list is a specific type of data structure that stores an ordered sequence of items
-    public abstract Collection<Move> calculateLegalMoves(final Board board);
+    public Collection<Move> calculateLegalMoves(final Board board) {
+        final List<Move> legalMoves = new ArrayList<>();
+        calculateLegalMoves(board, legalMoves);
+        return ImmutableList.copyOf(legalMoves);
+    }
+
+    // an abstract method adding the legal moves of the piece to the caller's list
+    // so the moves of all the pieces of a side can be collected in one list without a list per piece
+    public abstract void calculateLegalMoves(final Board board, final List<Move> legalMoves);
 
     // abstract method that takes in a move and apply it to the current piece we are on
     // and return a new piece with an updated piece position
@@ -1,14 +1,12 @@
 package com.chess.engine.piece;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import static com.chess.engine.board.Move.*;
@@ -16,69 +14,51 @@ import static com.chess.engine.board.Move.*;
 // a Queen is pretty much the Union of the Bishop and the Rook
 public class Queen extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATES = {-9, -8, -7, -1, 1, 7, 8, 9};
+    // every queen there can ever be, shared by all the boards
+    private static final Queen[] ALL_POSSIBLE_QUEENS = createAllPossiblePieces(new Queen[NUM_POSSIBLE_PIECES], Queen::new);
 
-    public Queen(final Alliance pieceAlliance, final int piecePosition) {
-        super(PieceType.QUEEN, piecePosition, pieceAlliance, true);
+    private Queen(final Alliance pieceAlliance,
+                  final int piecePosition,
+                  final boolean isFirstMove) {
+        super(PieceType.QUEEN, piecePosition, pieceAlliance, isFirstMove);
     }
 
-    public Queen(final Alliance pieceAlliance,
-                final int piecePosition,
-                final boolean isFirstMove){
-        super(PieceType.QUEEN, piecePosition, pieceAlliance, isFirstMove);
+    // a queen that has not moved yet
+    public static Queen createQueen(final Alliance pieceAlliance, final int piecePosition) {
+        return createQueen(pieceAlliance, piecePosition, true);
+    }
+
+    public static Queen createQueen(final Alliance pieceAlliance,
+                                    final int piecePosition,
+                                    final boolean isFirstMove) {
+        return ALL_POSSIBLE_QUEENS[possiblePieceIndex(pieceAlliance, piecePosition, isFirstMove)];
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
+    public void calculateLegalMoves(final Board board, final List<Move> legalMoves) {
 
-        final List<Move> legalMoves = new ArrayList<>(); // an Array list to store the legal moves
+        final BitBoard bitBoard = board.getBitBoard();
 
-        // looping through the candidate vector coordinates
-        for (final int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATES) {
-            int candidateDestinationCoordinate = this.piecePosition;
-            // going through the vector of each candidate until we get to the edge of the board
-            while (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                //if any Exclusion is true then we break out of the loop
-                if (isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset) ||
-                        isEighthColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)) {
-                    break;
-                }
-                // if the current position is valid we add the candidate offset to the current destination
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-                // if the destination is valid we go through the rest of the steps just like the Knight
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                    if (!candidateDestinationTile.isTileOccupied()) { // if the destination is not Occupied
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate)); // we add a non-attacking legal move
-                    } else { // if the destination is occupied
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece(); // storing the piece on the candidate destination in a new piece variable
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance(); // variable to store the destination piece's alliance
-                        if (this.pieceAlliance != pieceAlliance) { // if our piece alliance is not equal to the destination piece alliance then it's an enemy piece
-                            legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination)); // we add an attacking legal move
-                        }
-                        break; // once we find an occupied tile we need to break out of the loop ending the vector "the chain effect"
-                    }
-                }
+        // the magic lookup already stops every ray at the first piece in its way "the chain effect"
+        // so we only need to drop the tiles our own pieces stand on
+        long candidateDestinations = AttackTables.queenAttacks(this.piecePosition, bitBoard.getOccupancy()) &
+                ~bitBoard.getOccupancy(this.pieceAlliance);
+        while (candidateDestinations != 0) {
+            final int candidateDestinationCoordinate = BitBoard.firstTile(candidateDestinations);
+            candidateDestinations &= candidateDestinations - 1;
+            final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
+            if (!candidateDestinationTile.isTileOccupied()) { // if the destination is not Occupied
+                legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate)); // we add a non-attacking legal move
+            } else { // the destination holds an enemy piece
+                legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate, candidateDestinationTile.getPiece())); // we add an attacking legal move
             }
         }
-        return ImmutableList.copyOf(legalMoves);  // returning the immutable list of the legal moves
-    }
-
-    // Exclusions
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        // if the Queen is on the FIRST column then the following candidate offsets will be excluded (will be invalid)
-        return BoardUtils.FIRST_COLUMN[currentPosition] && (candidateOffset == -9 || candidateOffset == 7 || candidateOffset == -1);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        // if the Queen is on the EIGHTH column then the following candidate offsets will be excluded (will be invalid)
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (candidateOffset == -7 || candidateOffset == 9 || candidateOffset == 1);
     }
 
-    // a method to create a new Piece just like the current piece but with a new position "moved piece"
+    // a method to get the Piece just like the current piece but with a new position "moved piece"
     @Override
     public Queen movePiece(final Move move) {
-        return new Queen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return createQueen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     // toString to print out the letter corresponding to this specific piece on the chess board
@@ -16,10 +16,8 @@ import static com.chess.engine.board.Move.*;
 
 public class BlackPlayer extends Player {
 
-    public BlackPlayer(final Board board,
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-        super(board, blackStandardLegalMoves, whiteStandardLegalMoves);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
     // returns collection of active black pieces
@@ -28,6 +26,11 @@ public class BlackPlayer extends Player {
         return this.board.getBlackPieces();
     }
 
+    @Override
+    protected Collection<Move> getStandardLegalMoves() {
+        return this.board.getBlackStandardLegalMoves();
+    }
+
     @Override
     public Alliance getAlliance() {
         return Alliance.BLACK;
@@ -39,8 +42,7 @@ public class BlackPlayer extends Player {
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals) {
 
         final List<Move> kingCastles = new ArrayList<>();
 
@@ -55,10 +57,10 @@ public class BlackPlayer extends Player {
                 final Tile rookTile = this.board.getTile(7);
                 // if the rook is on Tile number 7 and is on its first move
                 if (rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-                    // if there are no active opponent attacks on tiles number 5 and 6 "between the rook and the king"
+                    // if the opponent does not attack tiles number 5 and 6 "the tiles the king passes through"
                     // and the piece on rookTile is actually a rook
-                    if (Player.calculateAttacksOnTile(5, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(6, opponentLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(5, Alliance.WHITE) &&
+                            !this.board.isSquareAttacked(6, Alliance.WHITE) &&
                             rookTile.getPiece().getPieceType().isRook()) {
                         // then we can add a new king side castle move "right side castling"
                         kingCastles.add(new KingSideCastleMove(this.board,
@@ -80,11 +82,11 @@ public class BlackPlayer extends Player {
                 final Tile rookTile = this.board.getTile(0);
                 // if the rook is on tile number 0 and is on its first move
                 if (rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-                    // if there are no active opponent attacks on tiles number 1, 2, and 3 "between the rook and the king"
+                    // if the opponent does not attack tiles number 3 and 2 "the tiles the king passes through"
+                    // tile number 1 only has to be empty, the rook passes it but the king never does
                     // and the piece on rookTile is actually a rook
-                    if (Player.calculateAttacksOnTile(1, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(2, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(3, opponentLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(3, Alliance.WHITE) &&
+                            !this.board.isSquareAttacked(2, Alliance.WHITE) &&
                             rookTile.getPiece().getPieceType().isRook()) {
                         // then we can add a new queen side castle move "left side castling"
                         kingCastles.add(new QueenSideCastleMove(this.board,
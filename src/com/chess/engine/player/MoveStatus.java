@@ -7,16 +7,12 @@ public enum MoveStatus {
             return true;
         }
     },
+    // also the status of a move that would leave the king in check, those are never among the legal moves
     ILLEGAL_MOVE {
         @Override
         public boolean isDone() {
             return false;
         }
-    }, LEAVES_PLAYER_IN_CHECK {
-        @Override
-        public boolean isDone() {
-            return false;
-        }
     };
     public abstract boolean isDone();
 }
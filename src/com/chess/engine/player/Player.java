@@ -1,57 +1,140 @@
 package com.chess.engine.player;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.PawnEnPassantAttackMove;
 import com.chess.engine.piece.King;
 import com.chess.engine.piece.Piece;
+import com.chess.engine.piece.Piece.PieceType;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class Player {
 
     protected final Board board;
     protected final King playerKing; // to keep track of the player king
-    protected final Collection<Move> legalMoves; // to keep track of the player's legal moves
-    private final boolean isInCheck; // to keep track of the king's check status
-
-    Player(final Board board,
-           final Collection<Move> legalMoves,
-           final Collection<Move> opponentMoves) {
+    // the legal moves and the check status are calculated the first time they are asked for and then kept
+    private Collection<Move> legalMoves; // to keep track of the player's legal moves
+    private LegalMoveIndex legalMoveIndex; // the same moves looked up by their tiles
+    private Boolean isInCheck; // to keep track of the king's check status
 
+    Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        // saving the legal moves and the castle moves to the legal moves using Guava's concat method
-        this.legalMoves = ImmutableList.copyOf(Iterables.concat(legalMoves, calculateKingCastles(legalMoves, opponentMoves)));
-        // if that list of attacks is not empty this means that the current player is in check
-        this.isInCheck = !Player.calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentMoves).isEmpty();
     }
 
     public King getPlayerKing(){
         return this.playerKing;
     }
 
+    // the moves the player can actually make, none of them leaves the king in check
     public Collection<Move> getLegalMoves(){
-        return this.legalMoves;
+        Collection<Move> legalMoves = this.legalMoves;
+        if (legalMoves == null) {
+            final Collection<Move> standardLegalMoves = getStandardLegalMoves();
+            // the pieces generate their moves without looking at the king "pseudo-legal moves"
+            // so we work out once who is checking the king and which pieces are pinned to it
+            // and then only keep the moves that are safe, no move has to be executed to find out
+            final BitBoard bitBoard = this.board.getBitBoard();
+            final int kingTile = this.playerKing.getPiecePosition();
+            final long checkers = attackersOf(kingTile, bitBoard.getOccupancy(), BitBoard.EMPTY);
+            final long pinned = calculatePinnedPieces(kingTile);
+            final ImmutableList.Builder<Move> safeMoves = ImmutableList.builder();
+            for (final Move move : Iterables.concat(standardLegalMoves, calculateKingCastles(standardLegalMoves))) {
+                if (isSafe(move, kingTile, checkers, pinned)) {
+                    safeMoves.add(move);
+                }
+            }
+            legalMoves = safeMoves.build();
+            this.legalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
+    // the moves of the pieces without looking at the king "pseudo-legal moves" and the castles
+    // this is the mobility the evaluator counts, SearchBoard.countMoves counts the same moves so both agree
+    public int getMobility() {
+        final Collection<Move> standardLegalMoves = getStandardLegalMoves();
+        return standardLegalMoves.size() + calculateKingCastles(standardLegalMoves).size();
+    }
+
+    // the legal move going from one tile to the other or null if there is none
+    // the moves are chained by destination the first time this is asked so a lookup only looks at the few moves landing on that tile
+    public Move getLegalMove(final int currentCoordinate, final int destinationCoordinate) {
+        LegalMoveIndex legalMoveIndex = this.legalMoveIndex;
+        if (legalMoveIndex == null) {
+            legalMoveIndex = new LegalMoveIndex(getLegalMoves());
+            this.legalMoveIndex = legalMoveIndex;
+        }
+        return legalMoveIndex.find(currentCoordinate, destinationCoordinate);
+    }
+
+    private boolean isSafe(final Move move,
+                           final int kingTile,
+                           final long checkers,
+                           final long pinned) {
+        final int from = move.getCurrentCoordinate();
+        final int to = move.getDestinationCoordinate();
+        final long occupancy = this.board.getBitBoard().getOccupancy();
+        // the king can go anywhere the opponent does not attack once the king is no longer blocking its own rays
+        if (move.getMovedPiece().getPieceType().isKing()) {
+            return attackersOf(to, occupancy & ~BitBoard.tileMask(from), BitBoard.EMPTY) == 0;
+        }
+        // en passant takes a pawn from a tile it does not land on so two pieces leave the rank at once
+        // it is easier to just take both pawns off, put ours on its tile and look at the king again
+        if (move instanceof PawnEnPassantAttackMove) {
+            final long capturedPawn = BitBoard.tileMask(move.getAttackedPiece().getPiecePosition());
+            final long newOccupancy = (occupancy & ~BitBoard.tileMask(from) & ~capturedPawn) | BitBoard.tileMask(to);
+            return attackersOf(kingTile, newOccupancy, capturedPawn) == 0;
+        }
+        // in double check only the king can move
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        // in check a move has to take the checking piece or step in between it and the king
+        if (checkers != 0) {
+            final int checker = BitBoard.firstTile(checkers);
+            if (((checkers | AttackTables.between(kingTile, checker)) & BitBoard.tileMask(to)) == 0) {
+                return false;
+            }
+        }
+        // a pinned piece can only move along the line between its king and the piece pinning it
+        return (pinned & BitBoard.tileMask(from)) == 0 || (AttackTables.line(kingTile, from) & BitBoard.tileMask(to)) != 0;
+    }
+
+    // the opponent's pieces attacking the tile given the occupancy of the board, leaving out the captured pieces
+    private long attackersOf(final int tileCoordinate,
+                             final long occupancy,
+                             final long captured) {
+        return this.board.getBitBoard().attackersOf(tileCoordinate, getOpponent().getAlliance(), occupancy) & ~captured;
     }
 
-    // method that returns the collection of moves that attacks the king's current position
-    protected static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> moves) {
-        final List<Move> attackMoves = new ArrayList<>();
-        // for loop to find if the destination coordinate of the enemy moves overlaps with the king's current position
-        // if it does then it's attacking the king
-        for (final Move move : moves) {
-            if (piecePosition == move.getDestinationCoordinate()){
-                attackMoves.add(move);
+    // our pieces that are the only thing standing between the king and an opponent rook, bishop or queen
+    private long calculatePinnedPieces(final int kingTile) {
+        final BitBoard bitBoard = this.board.getBitBoard();
+        final Alliance opponent = getOpponent().getAlliance();
+        final long opponentOccupancy = bitBoard.getOccupancy(opponent);
+        final long queens = bitBoard.getPieces(PieceType.QUEEN, opponent);
+        // the sliders that would attack the king if none of our pieces were on the board
+        long pinners = (AttackTables.rookAttacks(kingTile, opponentOccupancy) & (bitBoard.getPieces(PieceType.ROOK, opponent) | queens)) |
+                (AttackTables.bishopAttacks(kingTile, opponentOccupancy) & (bitBoard.getPieces(PieceType.BISHOP, opponent) | queens));
+        long pinned = BitBoard.EMPTY;
+        while (pinners != 0) {
+            final long blockers = AttackTables.between(kingTile, BitBoard.firstTile(pinners)) & bitBoard.getOccupancy();
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers;
             }
+            pinners &= pinners - 1;
         }
-        // then we return the list of moves that attacks that king's position
-        return ImmutableList.copyOf(attackMoves);
+        return pinned;
     }
 
     // this method is to make sure that there is a king for the player on the board
@@ -67,20 +150,26 @@ public abstract class Player {
 
     // to test if the move that's been passed is contained in this player's legal move collection
     public boolean isMoveLegal(final Move move) {
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
     }
     // returns true if the king is currently in check
+    // if any opponent piece attacks the king's tile this means that the player is in check
     public boolean isInCheck(){
-        return this.isInCheck;
+        Boolean isInCheck = this.isInCheck;
+        if (isInCheck == null) {
+            isInCheck = this.board.isSquareAttacked(this.playerKing.getPiecePosition(), getOpponent().getAlliance());
+            this.isInCheck = isInCheck;
+        }
+        return isInCheck;
     }
     // returns true if the king is currently in check and the king has no way to escape check
     public boolean isInCheckMate(){
-        return this.isInCheck && !hasEscapeMoves();
+        return isInCheck() && !hasEscapeMoves();
     }
     // returns true if the king is not in check but still has no escape moves
     // which means that any move you make will leave you in check position
     public boolean isInStaleMate(){
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isKingSideCastleCapable(){
@@ -92,19 +181,10 @@ public abstract class Player {
     }
 
     // checks if the king has any escape moves available
-    // in order to calculate whether the king can escape
-    // we are going to go through each of the player's legal moves
-    // and we are going to make those moves on an imaginary board
-    // after we make that move and it is Done we return true
-    // if we can't make the move then it is going to return false
+    // the legal moves never leave the king in check so any legal move is an escape
+    // and since the legal moves and the check status are both kept on the player asking again costs nothing
     protected boolean hasEscapeMoves(){
-        for (final Move move : this.legalMoves){
-            final MoveTransition transition = makeMove(move);
-            if (transition.getMoveStatus().isDone()){
-                return true;
-            }
-        }
-        return false;
+        return !getLegalMoves().isEmpty();
     }
     // TODO more work to do here!!!
     public boolean isCastled(){
@@ -116,22 +196,13 @@ public abstract class Player {
     // then we will make a new board to show the execution of that move
     public MoveTransition makeMove(final Move move){
         // if the move is illegal then the move transition returns the same board we are currently on
+        // the legal moves never leave the king in check "you cannot make a move that exposes your king to check"
+        // so a move that would is simply not one of them
         if (!isMoveLegal(move)){
             return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        // if the move is not illegal we execute the move and return a new transition board
-        final Board transitionBoard = move.execute();
-        // then we check all the possible attacks on the current player's king
-        final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(),
-                transitionBoard.currentPlayer().getLegalMoves());
-        // if there are any attacks on the current player's king we shouldn't be able to actually make the move
-        // " you cannot make a move that exposes your king to check "
-        // then we return the same board we are currently on
-        if (!kingAttacks.isEmpty()){
-            return new MoveTransition(this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
-        }
         // otherwise its safe to make the move and it returns the new board after the transition is done
-        return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
+        return new MoveTransition(move.execute(), move, MoveStatus.DONE);
     }
 
 
@@ -139,12 +210,49 @@ public abstract class Player {
     // will be implemented later in the BlackPlayer and WhitePlayer Classes!!!
     public abstract Collection<Piece> getActivePieces();
 
+    // returns the moves of the player's pieces without the castles
+    protected abstract Collection<Move> getStandardLegalMoves();
+
     // returns the alliance of the player
     public abstract Alliance getAlliance();
 
     // returns the opponent of the player
     public abstract Player getOpponent();
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals);
+
+    // the legal moves of a player chained by destination tile
+    // all the fields are final so a player shared between threads always sees the index whole
+    private static final class LegalMoveIndex {
 
+        private static final int NO_MOVE = -1;
 
+        private final Move[] moves;
+        // the first move landing on each tile and for every move the next one landing on the same tile
+        private final int[] firstMoveTo;
+        private final int[] nextMoveTo;
+
+        LegalMoveIndex(final Collection<Move> legalMoves) {
+            this.moves = legalMoves.toArray(new Move[0]);
+            this.firstMoveTo = new int[BoardUtils.NUM_TILES];
+            this.nextMoveTo = new int[this.moves.length];
+            Arrays.fill(this.firstMoveTo, NO_MOVE);
+            for (int i = this.moves.length - 1; i >= 0; i--) {
+                final int destination = this.moves[i].getDestinationCoordinate();
+                this.nextMoveTo[i] = this.firstMoveTo[destination];
+                this.firstMoveTo[destination] = i;
+            }
+        }
+
+        Move find(final int currentCoordinate, final int destinationCoordinate) {
+            if (destinationCoordinate < 0 || destinationCoordinate >= BoardUtils.NUM_TILES) {
+                return null;
+            }
+            for (int i = this.firstMoveTo[destinationCoordinate]; i != NO_MOVE; i = this.nextMoveTo[i]) {
+                if (this.moves[i].getCurrentCoordinate() == currentCoordinate) {
+                    return this.moves[i];
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -16,10 +16,8 @@ import static com.chess.engine.board.Move.*;
 
 public class WhitePlayer extends Player {
 
-    public WhitePlayer(final Board board,
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-        super(board, whiteStandardLegalMoves, blackStandardLegalMoves);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     // returns collection of active white pieces
@@ -28,6 +26,11 @@ public class WhitePlayer extends Player {
         return this.board.getWhitePieces();
     }
 
+    @Override
+    protected Collection<Move> getStandardLegalMoves() {
+        return this.board.getWhiteStandardLegalMoves();
+    }
+
     @Override
     public Alliance getAlliance() {
         return Alliance.WHITE;
@@ -39,8 +42,7 @@ public class WhitePlayer extends Player {
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals) {
 
         final List<Move> kingCastles = new ArrayList<>();
 
@@ -55,10 +57,10 @@ public class WhitePlayer extends Player {
                 final Tile rookTile = this.board.getTile(63);
                 // if the rook is on Tile number 63 and is on its first move
                 if (rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-                    // if there are no active opponent attacks on tiles number 61 and 62 "between the rook and the king"
+                    // if the opponent does not attack tiles number 61 and 62 "the tiles the king passes through"
                     // and the piece on rookTile is actually a rook
-                    if (Player.calculateAttacksOnTile(61, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(62, opponentLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(61, Alliance.BLACK) &&
+                            !this.board.isSquareAttacked(62, Alliance.BLACK) &&
                             rookTile.getPiece().getPieceType().isRook()) {
                         // then we can add a new king side castle move "right side castling"
                         kingCastles.add(new KingSideCastleMove(this.board,
@@ -80,11 +82,11 @@ public class WhitePlayer extends Player {
                 final Tile rookTile = this.board.getTile(56);
                 // if the rook is on tile number 56 and is on its first move
                 if (rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-                    // if there are no active opponent attacks on tiles number 59, 58, and 57 "between the rook and the king"
+                    // if the opponent does not attack tiles number 59 and 58 "the tiles the king passes through"
+                    // tile number 57 only has to be empty, the rook passes it but the king never does
                     // and the piece on rookTile is actually a rook
-                    if (Player.calculateAttacksOnTile(59, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(58, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(57, opponentLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(59, Alliance.BLACK) &&
+                            !this.board.isSquareAttacked(58, Alliance.BLACK) &&
                             rookTile.getPiece().getPieceType().isRook()) {
                         // then we can add a new queen side castle move "left side castling"
                         kingCastles.add(new QueenSideCastleMove(this.board,
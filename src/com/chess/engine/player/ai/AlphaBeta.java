@@ -0,0 +1,440 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+
+// MiniMax with alpha beta pruning
+// highest is the best score the maximizing player "white" is already sure to get and lowest is the same for the minimizing player "black"
+// once a branch can no longer end up between the two we stop searching it "a cutoff"
+// since the values of the branches we do search are exactly the MiniMax values it picks the same move as MiniMax
+// unless the quiescence search is turned on, then the leaves are scored only once the captures on the board have been played out
+public class AlphaBeta implements MoveStrategy {
+
+    // never a real score since the evaluator works far from the int limits
+    private static final int NO_SCORE = Integer.MIN_VALUE + 1;
+    // no deadline and no node limit
+    static final long NO_LIMIT = Long.MAX_VALUE;
+    private static final long CLOCK_CHECK_MASK = 4095;
+
+    private final BoardEvaluator boardEvaluator;
+    private final int searchDepth;
+    // null when searching without a transposition table
+    private final TranspositionTable transpositionTable;
+    private final boolean quiescence;
+    private final MoveOrdering moveOrdering;
+    private final SearchStack searchStack;
+    private long nodesSearched;
+    // the part of nodesSearched spent in the quiescence search
+    private long quiescenceNodes;
+    private long cutOffsProduced;
+    private long deadline;
+    private long maxNodes;
+    // once set every node returns straight away and the unfinished search is thrown away
+    private boolean searchStopped;
+    // set by another thread to stop this search, it stays set for the life of this AlphaBeta
+    private volatile boolean stopRequested;
+
+    public AlphaBeta(final int searchDepth) {
+        this(new StandardBoardEvaluator(), searchDepth);
+    }
+
+    public AlphaBeta(final BoardEvaluator boardEvaluator, final int searchDepth) {
+        this(boardEvaluator, searchDepth, null);
+    }
+
+    // the table is kept between calls to execute so what was learned on one move helps with the next
+    public AlphaBeta(final BoardEvaluator boardEvaluator,
+                     final int searchDepth,
+                     final TranspositionTable transpositionTable) {
+        this(boardEvaluator, searchDepth, transpositionTable, false);
+    }
+
+    public AlphaBeta(final BoardEvaluator boardEvaluator,
+                     final int searchDepth,
+                     final TranspositionTable transpositionTable,
+                     final boolean quiescence) {
+        this.boardEvaluator = boardEvaluator;
+        this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.quiescence = quiescence;
+        this.moveOrdering = new MoveOrdering();
+        this.searchStack = new SearchStack();
+        this.deadline = NO_LIMIT;
+        this.maxNodes = NO_LIMIT;
+    }
+
+    @Override
+    public String toString() {
+        return "AlphaBeta";
+    }
+
+    @Override
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    public long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    public long getCutOffsProduced() {
+        return this.cutOffsProduced;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+
+        final long startTime = System.currentTimeMillis();
+
+        final SearchBoard searchBoard = new SearchBoard(board);
+        startSearch(NO_LIMIT, NO_LIMIT);
+
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+
+        final int[] rootMoves = new int[SearchBoard.MAX_MOVES];
+        final int numRootMoves = searchBoard.generateLegalMoves(rootMoves);
+        final Move bestMove = Move.MoveFactory.createMove(board,
+                searchRoot(searchBoard, rootMoves, numRootMoves, this.searchDepth));
+
+        final long executionTime = System.currentTimeMillis() - startTime;
+        System.out.println(board.currentPlayer() + " SELECTS " + bestMove + " [nodes searched = " + this.nodesSearched +
+                (this.quiescence ? ", quiescence nodes = " + this.quiescenceNodes : "") + ", cutoffs = " + this.cutOffsProduced + ", time = " + executionTime + " ms]" +
+                (this.transpositionTable != null ? " " + this.transpositionTable : ""));
+        return bestMove;
+    }
+
+    // clears the counters before a new search, the search gives up once the clock reaches the deadline
+    // or once it has searched maxNodes nodes
+    void startSearch(final long deadline, final long maxNodes) {
+        this.nodesSearched = 0;
+        this.quiescenceNodes = 0;
+        this.cutOffsProduced = 0;
+        this.moveOrdering.ageHistory();
+        this.deadline = deadline;
+        this.maxNodes = maxNodes;
+        this.searchStopped = false;
+    }
+
+    // asks a search running on another thread to stop, it stops at the next node it enters
+    void requestStop() {
+        this.stopRequested = true;
+    }
+
+    boolean isSearchStopped() {
+        return this.searchStopped;
+    }
+
+    // searches the given root moves in order and returns the best one
+    // returns NO_MOVE if the search was stopped before every move was searched or if there are no legal moves
+    int searchRoot(final SearchBoard searchBoard,
+                   final int[] moves,
+                   final int numMoves,
+                   final int depth) {
+        final boolean isWhite = searchBoard.getSideToMove().isWhite();
+        int bestMove = SearchBoard.NO_MOVE;
+
+        int highestSeenValue = Integer.MIN_VALUE;
+        int lowestSeenValue = Integer.MAX_VALUE;
+        int currentValue;
+
+        for (int i = 0; i < numMoves; i++) {
+            final int move = moves[i];
+            if (searchBoard.makeMove(move)) {
+                // MiniMax keeps the last of the moves sharing the best score
+                // so the window is opened one point below the best score to still get the exact value of a tie
+                if (isWhite) {
+                    currentValue = min(searchBoard, depth - 1,
+                            highestSeenValue == Integer.MIN_VALUE ? Integer.MIN_VALUE : highestSeenValue - 1, Integer.MAX_VALUE);
+                } else {
+                    currentValue = max(searchBoard, depth - 1,
+                            Integer.MIN_VALUE, lowestSeenValue == Integer.MAX_VALUE ? Integer.MAX_VALUE : lowestSeenValue + 1);
+                }
+                searchBoard.unmakeMove();
+                if (this.searchStopped) {
+                    return SearchBoard.NO_MOVE;
+                }
+
+                if (isWhite && currentValue >= highestSeenValue) {
+                    highestSeenValue = currentValue;
+                    bestMove = move;
+                } else if (!isWhite && currentValue <= lowestSeenValue) {
+                    lowestSeenValue = currentValue;
+                    bestMove = move;
+                }
+            }
+        }
+        return bestMove;
+    }
+
+    // moves the given move to the front of the root moves keeping the order of the others
+    static void moveToFront(final int[] moves, final int numMoves, final int move) {
+        for (int i = 0; i < numMoves; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    // looking at the clock is not free so it is only done every few thousand nodes
+    private boolean shouldStop() {
+        if (!this.searchStopped && (this.stopRequested || this.nodesSearched >= this.maxNodes ||
+                ((this.nodesSearched & CLOCK_CHECK_MASK) == 0 && System.currentTimeMillis() >= this.deadline))) {
+            this.searchStopped = true;
+        }
+        return this.searchStopped;
+    }
+
+    public int max(final SearchBoard board, final int depth, final int highest, final int lowest) {
+        if (depth == 0 && this.quiescence) {
+            return quiescenceMax(board, highest, lowest);
+        }
+        this.nodesSearched++;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (depth == 0 || board.isEndGame()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+        int tableMove = SearchBoard.NO_MOVE;
+        if (this.transpositionTable != null) {
+            final long entry = this.transpositionTable.probe(board.getZobristHash());
+            if (entry != TranspositionTable.NOT_FOUND) {
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    final int score = probedScore(entry, highest, lowest);
+                    if (score != NO_SCORE) {
+                        return score;
+                    }
+                }
+                tableMove = TranspositionTable.getBestMove(entry);
+            }
+        }
+        int currentHighest = highest;
+        int bestMove = SearchBoard.NO_MOVE;
+
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves = board.generateMoves(moves);
+        this.moveOrdering.orderMoves(board, moves, numMoves, tableMove);
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                final int currentValue = min(board, depth - 1, currentHighest, lowest);
+                board.unmakeMove();
+                if (this.searchStopped) {
+                    return 0;
+                }
+                if (currentValue > currentHighest) {
+                    currentHighest = currentValue;
+                    bestMove = moves[i];
+                }
+                // black already has a better option somewhere else so it will never let us get here
+                if (currentHighest >= lowest) {
+                    this.cutOffsProduced++;
+                    this.moveOrdering.recordCutoff(board, moves[i], depth);
+                    store(board, depth, lowest, TranspositionTable.LOWER_BOUND, moves[i]);
+                    return lowest;
+                }
+            }
+        }
+        store(board, depth, currentHighest, currentHighest > highest ?
+                TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND, bestMove);
+        return currentHighest;
+    }
+
+    public int min(final SearchBoard board, final int depth, final int highest, final int lowest) {
+        if (depth == 0 && this.quiescence) {
+            return quiescenceMin(board, highest, lowest);
+        }
+        this.nodesSearched++;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (depth == 0 || board.isEndGame()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+        int tableMove = SearchBoard.NO_MOVE;
+        if (this.transpositionTable != null) {
+            final long entry = this.transpositionTable.probe(board.getZobristHash());
+            if (entry != TranspositionTable.NOT_FOUND) {
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    final int score = probedScore(entry, highest, lowest);
+                    if (score != NO_SCORE) {
+                        return score;
+                    }
+                }
+                tableMove = TranspositionTable.getBestMove(entry);
+            }
+        }
+        int currentLowest = lowest;
+        int bestMove = SearchBoard.NO_MOVE;
+
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves = board.generateMoves(moves);
+        this.moveOrdering.orderMoves(board, moves, numMoves, tableMove);
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                final int currentValue = max(board, depth - 1, highest, currentLowest);
+                board.unmakeMove();
+                if (this.searchStopped) {
+                    return 0;
+                }
+                if (currentValue < currentLowest) {
+                    currentLowest = currentValue;
+                    bestMove = moves[i];
+                }
+                // white already has a better option somewhere else so it will never let us get here
+                if (currentLowest <= highest) {
+                    this.cutOffsProduced++;
+                    this.moveOrdering.recordCutoff(board, moves[i], depth);
+                    store(board, depth, highest, TranspositionTable.UPPER_BOUND, moves[i]);
+                    return highest;
+                }
+            }
+        }
+        store(board, depth, currentLowest, currentLowest < lowest ?
+                TranspositionTable.EXACT : TranspositionTable.LOWER_BOUND, bestMove);
+        return currentLowest;
+    }
+
+    // keeps searching captures and promotions past the horizon so we never score a board halfway through an exchange
+    // the side to move can also "stand pat" and take the static score if every capture makes things worse
+    // so the static score is a floor for white and a ceiling for black, and a cutoff if it is already out of the window
+    // a side in check cannot stand pat, it gets to try all its moves instead
+    public int quiescenceMax(final SearchBoard board, final int highest, final int lowest) {
+        this.nodesSearched++;
+        this.quiescenceNodes++;
+        if (shouldStop()) {
+            return 0;
+        }
+        // out of room on the undo stack
+        if (board.getPly() >= SearchBoard.MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(board, 0);
+        }
+        final boolean inCheck = board.isInCheck(board.getSideToMove());
+        int currentHighest = highest;
+        if (!inCheck) {
+            final int standPat = this.boardEvaluator.evaluate(board, 0);
+            if (standPat >= lowest) {
+                this.cutOffsProduced++;
+                return lowest;
+            }
+            currentHighest = Math.max(currentHighest, standPat);
+        }
+
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves;
+        if (inCheck) {
+            numMoves = board.generateMoves(moves);
+            this.moveOrdering.orderMoves(board, moves, numMoves, SearchBoard.NO_MOVE);
+        } else {
+            numMoves = board.generateCaptures(moves);
+            this.moveOrdering.orderCaptures(board, moves, numMoves);
+        }
+        boolean hasLegalMove = false;
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                hasLegalMove = true;
+                final int currentValue = quiescenceMin(board, currentHighest, lowest);
+                board.unmakeMove();
+                if (this.searchStopped) {
+                    return 0;
+                }
+                currentHighest = Math.max(currentHighest, currentValue);
+                if (currentHighest >= lowest) {
+                    this.cutOffsProduced++;
+                    return lowest;
+                }
+            }
+        }
+        // checkmate
+        if (inCheck && !hasLegalMove) {
+            return Math.max(highest, Math.min(lowest, this.boardEvaluator.evaluate(board, 0)));
+        }
+        return currentHighest;
+    }
+
+    public int quiescenceMin(final SearchBoard board, final int highest, final int lowest) {
+        this.nodesSearched++;
+        this.quiescenceNodes++;
+        if (shouldStop()) {
+            return 0;
+        }
+        // out of room on the undo stack
+        if (board.getPly() >= SearchBoard.MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(board, 0);
+        }
+        final boolean inCheck = board.isInCheck(board.getSideToMove());
+        int currentLowest = lowest;
+        if (!inCheck) {
+            final int standPat = this.boardEvaluator.evaluate(board, 0);
+            if (standPat <= highest) {
+                this.cutOffsProduced++;
+                return highest;
+            }
+            currentLowest = Math.min(currentLowest, standPat);
+        }
+
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves;
+        if (inCheck) {
+            numMoves = board.generateMoves(moves);
+            this.moveOrdering.orderMoves(board, moves, numMoves, SearchBoard.NO_MOVE);
+        } else {
+            numMoves = board.generateCaptures(moves);
+            this.moveOrdering.orderCaptures(board, moves, numMoves);
+        }
+        boolean hasLegalMove = false;
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                hasLegalMove = true;
+                final int currentValue = quiescenceMax(board, highest, currentLowest);
+                board.unmakeMove();
+                if (this.searchStopped) {
+                    return 0;
+                }
+                currentLowest = Math.min(currentLowest, currentValue);
+                if (currentLowest <= highest) {
+                    this.cutOffsProduced++;
+                    return highest;
+                }
+            }
+        }
+        // checkmate
+        if (inCheck && !hasLegalMove) {
+            return Math.max(highest, Math.min(lowest, this.boardEvaluator.evaluate(board, 0)));
+        }
+        return currentLowest;
+    }
+
+    // the score a table entry gives us for the current window or NO_SCORE if it does not settle the node
+    // an exact score is clamped to the window like any other score of this fail hard search
+    private int probedScore(final long entry, final int highest, final int lowest) {
+        final int score = TranspositionTable.getScore(entry);
+        switch (TranspositionTable.getBound(entry)) {
+            case TranspositionTable.EXACT:
+                return Math.max(highest, Math.min(lowest, score));
+            case TranspositionTable.LOWER_BOUND:
+                return score >= lowest ? lowest : NO_SCORE;
+            case TranspositionTable.UPPER_BOUND:
+                return score <= highest ? highest : NO_SCORE;
+            default:
+                return NO_SCORE;
+        }
+    }
+
+    private void store(final SearchBoard board,
+                       final int depth,
+                       final int score,
+                       final int bound,
+                       final int bestMove) {
+        if (this.transpositionTable != null) {
+            this.transpositionTable.store(board.getZobristHash(), depth, score, bound, bestMove);
+        }
+    }
+
+}
@@ -1,9 +1,13 @@
 package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
 
 public interface BoardEvaluator {
 
     int evaluate(Board board, int depth);
 
+    // the same evaluation made on the mutable board the search walks
+    int evaluate(SearchBoard board, int depth);
+
 }
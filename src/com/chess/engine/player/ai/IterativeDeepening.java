@@ -0,0 +1,102 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+
+
+// searches to depth 1, then 2, then 3... with AlphaBeta until the time or node budget runs out
+// a fixed depth can take a few milliseconds in one position and many seconds in another
+// this way we always answer in time with the best move of the deepest search we managed to finish
+// the shallow searches are cheap and fill the transposition table with best moves that make the deeper ones prune more
+public class IterativeDeepening implements MoveStrategy {
+
+    public static final long NO_BUDGET = AlphaBeta.NO_LIMIT;
+
+    private final AlphaBeta alphaBeta;
+    private final int maxDepth;
+    private final long timeBudget;
+    private final long nodeBudget;
+    private long nodesSearched;
+    private int depthReached;
+
+    public IterativeDeepening(final long timeBudget) {
+        this(new StandardBoardEvaluator(), SearchBoard.MAX_PLY, timeBudget, NO_BUDGET, new TranspositionTable());
+    }
+
+    // timeBudget is in milliseconds, maxDepth caps the search when both budgets are NO_BUDGET
+    public IterativeDeepening(final BoardEvaluator boardEvaluator,
+                              final int maxDepth,
+                              final long timeBudget,
+                              final long nodeBudget,
+                              final TranspositionTable transpositionTable) {
+        this.alphaBeta = new AlphaBeta(boardEvaluator, maxDepth, transpositionTable, true);
+        this.maxDepth = Math.min(maxDepth, SearchBoard.MAX_PLY);
+        this.timeBudget = timeBudget;
+        this.nodeBudget = nodeBudget;
+    }
+
+    @Override
+    public String toString() {
+        return "IterativeDeepening";
+    }
+
+    @Override
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    // the depth of the last search that was finished
+    public int getDepthReached() {
+        return this.depthReached;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+
+        final long startTime = System.currentTimeMillis();
+        final long deadline = this.timeBudget == NO_BUDGET ? AlphaBeta.NO_LIMIT : startTime + this.timeBudget;
+
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final int[] rootMoves = new int[SearchBoard.MAX_MOVES];
+        final int numRootMoves = searchBoard.generateLegalMoves(rootMoves);
+        this.nodesSearched = 0;
+        this.depthReached = 0;
+        int bestMove = SearchBoard.NO_MOVE;
+
+        // without a time budget the depth cap is what ends the search
+        System.out.println(board.currentPlayer() + " THINKING " +
+                (this.timeBudget == NO_BUDGET ? "with depth = " + this.maxDepth : "for " + this.timeBudget + " ms"));
+
+        for (int depth = 1; depth <= this.maxDepth; depth++) {
+            // the first search always runs to the end so there is a move to return however small the budget
+            if (depth == 1) {
+                this.alphaBeta.startSearch(AlphaBeta.NO_LIMIT, AlphaBeta.NO_LIMIT);
+            } else {
+                this.alphaBeta.startSearch(deadline, this.nodeBudget - this.nodesSearched);
+            }
+            final int iterationBestMove = this.alphaBeta.searchRoot(searchBoard, rootMoves, numRootMoves, depth);
+            this.nodesSearched += this.alphaBeta.getNodesSearched();
+            if (this.alphaBeta.isSearchStopped()) {
+                break;
+            }
+            if (iterationBestMove == SearchBoard.NO_MOVE) {
+                // no legal moves
+                break;
+            }
+            bestMove = iterationBestMove;
+            this.depthReached = depth;
+            // the best move so far is searched first next time, it is the most likely to stay the best
+            AlphaBeta.moveToFront(rootMoves, numRootMoves, bestMove);
+            if (System.currentTimeMillis() >= deadline || this.nodesSearched >= this.nodeBudget) {
+                break;
+            }
+        }
+
+        final Move selectedMove = Move.MoveFactory.createMove(board, bestMove);
+        final long executionTime = System.currentTimeMillis() - startTime;
+        System.out.println(board.currentPlayer() + " SELECTS " + selectedMove + " [depth = " + this.depthReached +
+                ", nodes searched = " + this.nodesSearched + ", time = " + executionTime + " ms]");
+        return selectedMove;
+    }
+}
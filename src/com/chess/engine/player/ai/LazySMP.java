@@ -0,0 +1,207 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Lazy SMP: every thread runs its own iterative deepening search of the whole tree from the root
+// the threads never talk to each other, they only share the transposition table
+// a helper that searched a position first leaves its score and best move in the table for the others to pick up
+// so together they get deeper than one thread would in the same time
+// the helpers search the root moves in a different order and half of them skip a depth so they do not all walk the same tree
+// the move we play is the one of the main thread, the helpers are only there to fill the table
+public class LazySMP implements MoveStrategy {
+
+    private final BoardEvaluator boardEvaluator;
+    private final int threadCount;
+    private final int maxDepth;
+    private final long timeBudget;
+    private final TranspositionTable transpositionTable;
+    private long nodesSearched;
+    private long nodesPerSecond;
+    private long searchTime;
+    private int depthReached;
+
+    public LazySMP(final int threadCount, final long timeBudget) {
+        this(new StandardBoardEvaluator(), threadCount, SearchBoard.MAX_PLY, timeBudget, new TranspositionTable());
+    }
+
+    // timeBudget is in milliseconds, maxDepth caps the search when the budget is IterativeDeepening.NO_BUDGET
+    public LazySMP(final BoardEvaluator boardEvaluator,
+                   final int threadCount,
+                   final int maxDepth,
+                   final long timeBudget,
+                   final TranspositionTable transpositionTable) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Invalid thread count " + threadCount);
+        }
+        this.boardEvaluator = boardEvaluator;
+        this.threadCount = threadCount;
+        this.maxDepth = Math.min(maxDepth, SearchBoard.MAX_PLY);
+        this.timeBudget = timeBudget;
+        this.transpositionTable = transpositionTable;
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMP";
+    }
+
+    // the nodes searched by all the threads together
+    @Override
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    public long getNodesPerSecond() {
+        return this.nodesPerSecond;
+    }
+
+    // how long the last search took in milliseconds, with no budget that is the time to reach the max depth
+    public long getSearchTime() {
+        return this.searchTime;
+    }
+
+    // the depth of the last search the main thread finished
+    public int getDepthReached() {
+        return this.depthReached;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+
+        final long startTime = System.currentTimeMillis();
+        final long deadline = this.timeBudget == IterativeDeepening.NO_BUDGET ?
+                AlphaBeta.NO_LIMIT : startTime + this.timeBudget;
+
+        System.out.println(board.currentPlayer() + " THINKING with " + this.threadCount + " threads " +
+                (this.timeBudget == IterativeDeepening.NO_BUDGET ? "to depth = " + this.maxDepth : "for " + this.timeBudget + " ms"));
+
+        // the helpers get a pool of their own for this search, the common pool may have fewer threads than we ask for
+        // and the searches would block it for the whole time budget, the pool is shut down once they are done
+        final List<SearchThread> helpers = new ArrayList<>();
+        final List<ForkJoinTask<?>> helperTasks = new ArrayList<>();
+        final ForkJoinPool pool = this.threadCount > 1 ? new ForkJoinPool(this.threadCount - 1) : null;
+        final SearchThread mainThread = new SearchThread(board, 0, deadline);
+        try {
+            for (int i = 1; i < this.threadCount; i++) {
+                final SearchThread helper = new SearchThread(board, i, deadline);
+                helpers.add(helper);
+                helperTasks.add(pool.submit(helper));
+            }
+            mainThread.run();
+        } finally {
+            // the main thread is done so whatever the helpers are still searching is of no use anymore
+            for (final SearchThread helper : helpers) {
+                helper.alphaBeta.requestStop();
+            }
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        for (final ForkJoinTask<?> helperTask : helperTasks) {
+            helperTask.join();
+        }
+
+        this.nodesSearched = mainThread.nodesSearched;
+        for (final SearchThread helper : helpers) {
+            this.nodesSearched += helper.nodesSearched;
+        }
+        this.depthReached = mainThread.depthReached;
+        final long executionTime = System.currentTimeMillis() - startTime;
+        this.searchTime = executionTime;
+        this.nodesPerSecond = this.nodesSearched * 1000 / Math.max(1, executionTime);
+
+        final Move selectedMove = Move.MoveFactory.createMove(board, mainThread.bestMove);
+        System.out.println(board.currentPlayer() + " SELECTS " + selectedMove + " [depth = " + this.depthReached +
+                ", nodes searched = " + this.nodesSearched + ", nps = " + this.nodesPerSecond +
+                ", time = " + executionTime + " ms] " + this.transpositionTable);
+        return selectedMove;
+    }
+
+    // searches the board to the same depth with 1, 2, 4 ... up to maxThreads threads, every run with a table of its own
+    // and returns a line per thread count with the time to depth, the speedup t(1) / t(n) and the nodes per second
+    // the times of a single run are noisy, a search of a few seconds per run gives numbers worth comparing
+    public static List<String> measureScaling(final Board board, final int maxThreads, final int depth) {
+        final List<String> report = new ArrayList<>();
+        long serialTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final LazySMP lazySMP = new LazySMP(new StandardBoardEvaluator(), threads, depth,
+                    IterativeDeepening.NO_BUDGET, new TranspositionTable());
+            lazySMP.execute(board);
+            final long time = Math.max(1, lazySMP.getSearchTime());
+            if (threads == 1) {
+                serialTime = time;
+            }
+            report.add("threads = " + threads + ", depth = " + lazySMP.getDepthReached() + ", time = " + time +
+                    " ms, speedup = " + String.format(Locale.ROOT, "%.2f", (double) serialTime / time) +
+                    ", nps = " + lazySMP.getNodesPerSecond());
+        }
+        return report;
+    }
+
+    // one iterative deepening search with its own AlphaBeta and SearchBoard
+    private class SearchThread implements Runnable {
+
+        private final Board board;
+        private final int id;
+        private final long deadline;
+        private final AlphaBeta alphaBeta;
+        private int bestMove;
+        private int depthReached;
+        private long nodesSearched;
+
+        private SearchThread(final Board board, final int id, final long deadline) {
+            this.board = board;
+            this.id = id;
+            this.deadline = deadline;
+            this.alphaBeta = new AlphaBeta(boardEvaluator, maxDepth, transpositionTable, true);
+        }
+
+        @Override
+        public void run() {
+            final SearchBoard searchBoard = new SearchBoard(this.board);
+            final int[] rootMoves = new int[SearchBoard.MAX_MOVES];
+            final int numRootMoves = searchBoard.generateLegalMoves(rootMoves);
+            rotate(rootMoves, numRootMoves, this.id);
+            for (int depth = 1 + this.id % 2; depth <= maxDepth; depth++) {
+                // the first search of the main thread always runs to the end so there is a move to return
+                if (this.id == 0 && depth == 1) {
+                    this.alphaBeta.startSearch(AlphaBeta.NO_LIMIT, AlphaBeta.NO_LIMIT);
+                } else {
+                    this.alphaBeta.startSearch(this.deadline, AlphaBeta.NO_LIMIT);
+                }
+                final int iterationBestMove = this.alphaBeta.searchRoot(searchBoard, rootMoves, numRootMoves, depth);
+                this.nodesSearched += this.alphaBeta.getNodesSearched();
+                if (this.alphaBeta.isSearchStopped() || iterationBestMove == SearchBoard.NO_MOVE) {
+                    break;
+                }
+                this.bestMove = iterationBestMove;
+                this.depthReached = depth;
+                AlphaBeta.moveToFront(rootMoves, numRootMoves, iterationBestMove);
+                if (System.currentTimeMillis() >= this.deadline) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // starts the root moves "distance" moves further on, the moves before that go to the end
+    private static void rotate(final int[] moves, final int numMoves, final int distance) {
+        if (numMoves == 0) {
+            return;
+        }
+        final int shift = distance % numMoves;
+        final int[] rotated = new int[numMoves];
+        for (int i = 0; i < numMoves; i++) {
+            rotated[i] = moves[(i + shift) % numMoves];
+        }
+        System.arraycopy(rotated, 0, moves, 0, numMoves);
+    }
+}
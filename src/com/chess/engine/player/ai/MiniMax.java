@@ -2,19 +2,64 @@ package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
-import com.chess.engine.player.MoveTransition;
-import org.junit.jupiter.api.DisplayNameGenerator;
+import com.chess.engine.board.SearchBoard;
 
-import java.awt.font.FontRenderContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class MiniMax implements MoveStrategy {
 
+    // never a real score since the evaluator works far from the int limits
+    private static final int NO_SCORE = Integer.MIN_VALUE + 1;
+
     private final BoardEvaluator boardEvaluator;
     private final int searchDepth;
+    // null when searching without a transposition table
+    private final TranspositionTable transpositionTable;
+    // the threads searching the root moves, 0 when they are searched one after the other on the calling thread
+    private final int parallelism;
+    private final SearchStack searchStack;
+    private long nodesSearched;
 
     public MiniMax(final int searchDepth) {
-        this.boardEvaluator = new StandardBoardEvaluator();
+        this(new StandardBoardEvaluator(), searchDepth);
+    }
+
+    public MiniMax(final BoardEvaluator boardEvaluator, final int searchDepth) {
+        this(boardEvaluator, searchDepth, null);
+    }
+
+    // with a fresh table the search gives the same scores and move as without one, it only skips the transpositions
+    // a table kept from earlier searches can hand back a score stored with more depth left than asked for
+    // that score is the better one but a mate in it carries the depth bonus of the search that stored it
+    // so with a reused table mate scores are only accurate to the depth they were stored at
+    public MiniMax(final BoardEvaluator boardEvaluator,
+                   final int searchDepth,
+                   final TranspositionTable transpositionTable) {
+        this.boardEvaluator = boardEvaluator;
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.parallelism = 0;
+        this.searchStack = new SearchStack();
+    }
+
+    // searches the root moves in parallel on a pool of the given number of threads
+    // the pool only lives for one call to execute so a MiniMax that is dropped leaves no threads behind
+    // this mode searches without a table, entries written by one thread and read by another
+    // would make the picked move depend on which thread got where first
+    public MiniMax(final BoardEvaluator boardEvaluator,
+                   final int searchDepth,
+                   final int parallelism) {
+        this.boardEvaluator = boardEvaluator;
+        this.searchDepth = searchDepth;
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+        }
+        this.transpositionTable = null;
+        this.parallelism = parallelism;
+        this.searchStack = new SearchStack();
     }
 
     @Override
@@ -22,26 +67,49 @@ public class MiniMax implements MoveStrategy {
         return "MiniMax";
     }
 
+    @Override
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    // the tree is walked on a single SearchBoard by making and unmaking moves
+    // so we only touch the immutable Board at the root to pick one of its moves
     @Override
     public Move execute(Board board) {
 
         final long startTime = System.currentTimeMillis();
 
-        Move bestMove = null;
+        this.nodesSearched = 0;
+
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+
+        final Move bestMove = Move.MoveFactory.createMove(board,
+                this.parallelism == 0 ? searchRoot(board) : searchRootInParallel(board));
+
+        final long executionTime = System.currentTimeMillis() - startTime;
+        System.out.println(board.currentPlayer() + " SELECTS " + bestMove + " [nodes searched = " + this.nodesSearched +
+                ", time = " + executionTime + " ms]");
+        return bestMove;
+
+    }
+
+    private int searchRoot(final Board board) {
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final int[] moves = this.searchStack.getMoves(searchBoard.getPly());
+        final int numMoves = searchBoard.generateLegalMoves(moves);
+        int bestMove = SearchBoard.NO_MOVE;
 
         int highestSeenValue = Integer.MIN_VALUE;
         int lowestSeenValue = Integer.MAX_VALUE;
         int currentValue;
 
-        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
-        int numMoves = board.currentPlayer().getLegalMoves().size();
-
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
+        for (int i = 0; i < numMoves; i++) {
+            final int move = moves[i];
+            if (searchBoard.makeMove(move)) {
                 currentValue = board.currentPlayer().getAlliance().isWhite() ?
-                        min(moveTransition.getTransitionBoard(), this.searchDepth - 1) :
-                        max(moveTransition.getTransitionBoard(), this.searchDepth - 1);
+                        min(searchBoard, this.searchDepth - 1) :
+                        max(searchBoard, this.searchDepth - 1);
+                searchBoard.unmakeMove();
 
                 if (board.currentPlayer().getAlliance().isWhite() && currentValue >= highestSeenValue) {
                     highestSeenValue = currentValue;
@@ -52,51 +120,152 @@ public class MiniMax implements MoveStrategy {
                 }
             }
         }
-
-        final long executionTime = System.currentTimeMillis() - startTime;
         return bestMove;
+    }
 
+    // every root move gets its own task with its own SearchBoard so the tasks share nothing but the immutable Board
+    // the results are then gone through in the same order and with the same ties as the serial search
+    // so the same move is picked whatever order the tasks finish in
+    private int searchRootInParallel(final Board board) {
+        final int[] moves = new int[SearchBoard.MAX_MOVES];
+        final int numMoves = new SearchBoard(board).generateLegalMoves(moves);
+        final List<RootMoveTask> tasks = new ArrayList<>();
+        final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            for (int i = 0; i < numMoves; i++) {
+                final RootMoveTask task = new RootMoveTask(board, moves[i]);
+                tasks.add(task);
+                pool.execute(task);
+            }
+        } finally {
+            // the tasks already handed over still run, the threads end once they are done
+            pool.shutdown();
+        }
+        int bestMove = SearchBoard.NO_MOVE;
+
+        int highestSeenValue = Integer.MIN_VALUE;
+        int lowestSeenValue = Integer.MAX_VALUE;
+
+        for (final RootMoveTask task : tasks) {
+            final Integer currentValue = task.join();
+            this.nodesSearched += task.nodesSearched;
+            if (currentValue == null) {
+                continue;
+            }
+            if (board.currentPlayer().getAlliance().isWhite() && currentValue >= highestSeenValue) {
+                highestSeenValue = currentValue;
+                bestMove = task.move;
+            } else if (board.currentPlayer().getAlliance().isBlack() && currentValue <= lowestSeenValue) {
+                lowestSeenValue = currentValue;
+                bestMove = task.move;
+            }
+        }
+        return bestMove;
     }
 
-    public int min(final Board board, final int depth) {
-        if (depth == 0 || isEndGameScenario(board)) {
+    public int min(final SearchBoard board, final int depth) {
+        this.nodesSearched++;
+        if (depth == 0 || board.isEndGame()) {
             return this.boardEvaluator.evaluate(board, depth);
         }
+        final int tableScore = probe(board, depth);
+        if (tableScore != NO_SCORE) {
+            return tableScore;
+        }
         int lowestSeenValue = Integer.MAX_VALUE;
+        int bestMove = SearchBoard.NO_MOVE;
 
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = max(moveTransition.getTransitionBoard(), depth - 1);
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves = board.generateMoves(moves);
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                final int currentValue = max(board, depth - 1);
+                board.unmakeMove();
                 if (currentValue <= lowestSeenValue) {
                     lowestSeenValue = currentValue;
+                    bestMove = moves[i];
                 }
             }
         }
+        store(board, depth, lowestSeenValue, bestMove);
         return lowestSeenValue;
     }
 
-    private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() ||
-                board.currentPlayer().isInStaleMate();
+    // MiniMax only ever gets exact scores so those are the only entries it can use
+    private int probe(final SearchBoard board, final int depth) {
+        if (this.transpositionTable != null) {
+            final long entry = this.transpositionTable.probe(board.getZobristHash());
+            if (entry != TranspositionTable.NOT_FOUND &&
+                    TranspositionTable.getBound(entry) == TranspositionTable.EXACT &&
+                    TranspositionTable.getDepth(entry) >= depth) {
+                return TranspositionTable.getScore(entry);
+            }
+        }
+        return NO_SCORE;
+    }
+
+    private void store(final SearchBoard board, final int depth, final int score, final int bestMove) {
+        if (this.transpositionTable != null) {
+            this.transpositionTable.store(board.getZobristHash(), depth, score, TranspositionTable.EXACT, bestMove);
+        }
     }
 
-    public int max(final Board board, final int depth) {
-        if (depth == 0 /*|| game over*/) {
+    public int max(final SearchBoard board, final int depth) {
+        this.nodesSearched++;
+        if (depth == 0 || board.isEndGame()) {
             return this.boardEvaluator.evaluate(board, depth);
         }
+        final int tableScore = probe(board, depth);
+        if (tableScore != NO_SCORE) {
+            return tableScore;
+        }
         int highestSeenValue = Integer.MIN_VALUE;
+        int bestMove = SearchBoard.NO_MOVE;
 
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = min(moveTransition.getTransitionBoard(), depth - 1);
+        final int[] moves = this.searchStack.getMoves(board.getPly());
+        final int numMoves = board.generateMoves(moves);
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                final int currentValue = min(board, depth - 1);
+                board.unmakeMove();
                 if (currentValue >= highestSeenValue) {
                     highestSeenValue = currentValue;
+                    bestMove = moves[i];
                 }
             }
         }
+        store(board, depth, highestSeenValue, bestMove);
         return highestSeenValue;
     }
 
+    // searches the subtree of one root move with a serial MiniMax of its own
+    // the value is null if the move turns out to be illegal
+    private class RootMoveTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int move;
+        private long nodesSearched;
+
+        private RootMoveTask(final Board board, final int move) {
+            this.board = board;
+            this.move = move;
+        }
+
+        @Override
+        protected Integer compute() {
+            final SearchBoard searchBoard = new SearchBoard(this.board);
+            if (!searchBoard.makeMove(this.move)) {
+                return null;
+            }
+            final MiniMax searcher = new MiniMax(boardEvaluator, searchDepth);
+            final int value = this.board.currentPlayer().getAlliance().isWhite() ?
+                    searcher.min(searchBoard, searchDepth - 1) :
+                    searcher.max(searchBoard, searchDepth - 1);
+            this.nodesSearched = searcher.getNodesSearched();
+            return value;
+        }
+    }
+
 }
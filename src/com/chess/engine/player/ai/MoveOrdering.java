@@ -0,0 +1,133 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.piece.Piece.PieceType;
+
+// puts the moves of a node in the order most likely to produce a cutoff early
+// 1. the best move the transposition table remembers for the position
+// 2. captures and promotions, most valuable victim first and then least valuable attacker "MVV-LVA"
+// 3. the killer moves, quiet moves that produced a cutoff at the same ply in another branch
+// 4. the rest of the quiet moves by their history, how often and how deep they produced a cutoff anywhere in the tree
+// every buffer is allocated once so ordering a node does not allocate anything
+// it keeps state between nodes so every searching thread needs its own
+public final class MoveOrdering {
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 20;
+    // history scores stay below the killers
+    private static final int MAX_HISTORY = KILLER_SCORE - 1;
+    private static final int NUM_KILLERS = 2;
+
+    private final int[][] killers;
+    // indexed by side to move, from tile and to tile
+    private final int[][] history;
+    private final int[] scores;
+
+    public MoveOrdering() {
+        this.killers = new int[SearchBoard.MAX_PLY][NUM_KILLERS];
+        this.history = new int[2][BoardUtils.NUM_TILES * BoardUtils.NUM_TILES];
+        this.scores = new int[SearchBoard.MAX_MOVES];
+    }
+
+    // sorts the moves of the node, tableMove is the best move from the transposition table or NO_MOVE
+    public void orderMoves(final SearchBoard board,
+                           final int[] moves,
+                           final int numMoves,
+                           final int tableMove) {
+        final int ply = board.getPly();
+        final int[] sideHistory = this.history[board.getSideToMove().ordinal()];
+        for (int i = 0; i < numMoves; i++) {
+            final int move = moves[i];
+            if (move == tableMove) {
+                this.scores[i] = HASH_MOVE_SCORE;
+            } else if (SearchBoard.isAttack(move) || SearchBoard.isPromotion(move)) {
+                this.scores[i] = captureScore(board, move);
+            } else if (move == this.killers[ply][0]) {
+                this.scores[i] = KILLER_SCORE + 1;
+            } else if (move == this.killers[ply][1]) {
+                this.scores[i] = KILLER_SCORE;
+            } else {
+                this.scores[i] = sideHistory[historyIndex(move)];
+            }
+        }
+        sort(moves, numMoves);
+    }
+
+    // the quiescence search only has captures and promotions so only MVV-LVA matters there
+    public void orderCaptures(final SearchBoard board,
+                              final int[] moves,
+                              final int numMoves) {
+        for (int i = 0; i < numMoves; i++) {
+            this.scores[i] = captureScore(board, moves[i]);
+        }
+        sort(moves, numMoves);
+    }
+
+    // called when a move produced a cutoff, captures are already searched early so only quiet moves are remembered
+    public void recordCutoff(final SearchBoard board,
+                             final int move,
+                             final int depth) {
+        if (SearchBoard.isAttack(move) || SearchBoard.isPromotion(move)) {
+            return;
+        }
+        final int[] plyKillers = this.killers[board.getPly()];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int[] sideHistory = this.history[board.getSideToMove().ordinal()];
+        final int index = historyIndex(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    // halves the history so that what was learned in older searches slowly counts for less
+    public void ageHistory() {
+        for (final int[] sideHistory : this.history) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] >>= 1;
+            }
+        }
+    }
+
+    // the victim counts first and the attacker only breaks ties "most valuable victim, least valuable attacker"
+    // the attacker is ranked by its type from pawn 0 to king 5, which stays under the victim step of 64
+    private static int captureScore(final SearchBoard board, final int move) {
+        final int from = SearchBoard.getCurrentCoordinate(move);
+        final int to = SearchBoard.getDestinationCoordinate(move);
+        final PieceType attacker = SearchBoard.getPieceType(board.getPieceIndex(from));
+        final int victimIndex = board.getPieceIndex(to);
+        // en passant lands on an empty tile and takes a pawn
+        int victimValue = victimIndex == SearchBoard.EMPTY_TILE ?
+                (SearchBoard.isAttack(move) ? PieceType.PAWN.getPieceValue() : 0) :
+                SearchBoard.getPieceType(victimIndex).getPieceValue();
+        if (SearchBoard.isPromotion(move)) {
+            victimValue += SearchBoard.getPromotionPieceType(move).getPieceValue();
+        }
+        return CAPTURE_SCORE + victimValue * 64 - attacker.ordinal();
+    }
+
+    private static int historyIndex(final int move) {
+        return SearchBoard.getCurrentCoordinate(move) * BoardUtils.NUM_TILES + SearchBoard.getDestinationCoordinate(move);
+    }
+
+    // insertion sort from the highest score down, there are only a few dozen moves and equal scores keep their order
+    private void sort(final int[] moves, final int numMoves) {
+        for (int i = 1; i < numMoves; i++) {
+            final int move = moves[i];
+            final int score = this.scores[i];
+            int j = i - 1;
+            while (j >= 0 && this.scores[j] < score) {
+                moves[j + 1] = moves[j];
+                this.scores[j + 1] = this.scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            this.scores[j + 1] = score;
+        }
+    }
+}
@@ -7,5 +7,7 @@ public interface MoveStrategy {
 
     Move execute(Board board);
 
+    // the number of positions the last execute() visited
+    long getNodesSearched();
 
 }
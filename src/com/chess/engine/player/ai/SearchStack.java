@@ -0,0 +1,26 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.SearchBoard;
+
+// one move buffer per ply so the search never allocates a move list while walking the tree
+// a node generates its moves into the buffer of its ply and its children only ever touch the buffers below it
+// a buffer is only created the first time the search reaches its ply and is then reused for every later node at that ply
+// it is owned by a single search so every searching thread needs its own
+public final class SearchStack {
+
+    private final int[][] moveBuffers;
+
+    public SearchStack() {
+        this.moveBuffers = new int[SearchBoard.MAX_PLY + 1][];
+    }
+
+    // the move buffer of the given ply, big enough for every move of any position
+    public int[] getMoves(final int ply) {
+        int[] moves = this.moveBuffers[ply];
+        if (moves == null) {
+            moves = new int[SearchBoard.MAX_MOVES];
+            this.moveBuffers[ply] = moves;
+        }
+        return moves;
+    }
+}
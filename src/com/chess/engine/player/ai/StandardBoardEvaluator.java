@@ -1,7 +1,10 @@
 package com.chess.engine.player.ai;
 
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
-import com.chess.engine.piece.Piece;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.piece.Piece.PieceType;
 import com.chess.engine.player.Player;
 
 public final class StandardBoardEvaluator implements BoardEvaluator {
@@ -10,6 +13,7 @@ public final class StandardBoardEvaluator implements BoardEvaluator {
     private static final int CHECK_MATE_BONUS = 10000;
     private static final int DEPTH_BONUS = 100;
     private static final int CASTLE_BONUS = 60;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
 
     @Override
     public int evaluate(final Board board, final int depth) {
@@ -17,14 +21,38 @@ public final class StandardBoardEvaluator implements BoardEvaluator {
                 scorePlayer(board, board.blackPlayer(), depth);
     }
 
+    @Override
+    public int evaluate(final SearchBoard board, final int depth) {
+        return scorePlayer(board, Alliance.WHITE, depth) -
+                scorePlayer(board, Alliance.BLACK, depth);
+    }
+
     private int scorePlayer(final Board board, final Player player, final int depth) {
-        return pieceValue(player) +
+        return pieceValue(board, player) +
                 mobility(player) +
                 check(player) +
                 checkmate(player, depth) +
                 castled(player);
     }
 
+    // scoring an alliance on the search board the same way we score a Player on a Board
+    // only the side to move can be in checkmate so that is the only one we look for
+    private int scorePlayer(final SearchBoard board, final Alliance alliance, final int depth) {
+        final Alliance opponent = alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        return pieceValue(board, alliance) +
+                board.countMoves(alliance) +
+                (board.isInCheck(opponent) ? CHECK_BONUS : 0) +
+                (board.getSideToMove() == opponent && board.isInCheckMate() ? CHECK_MATE_BONUS * depthBonus(depth) : 0);
+    }
+
+    private static int pieceValue(final SearchBoard board, final Alliance alliance) {
+        int pieceValueScore = 0;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            pieceValueScore += Long.bitCount(board.getPieces(pieceType, alliance)) * pieceType.getPieceValue();
+        }
+        return pieceValueScore;
+    }
+
     private static int castled(final Player player) {
         return player.isCastled() ? CASTLE_BONUS : 0;
     }
@@ -41,14 +69,17 @@ public final class StandardBoardEvaluator implements BoardEvaluator {
         return player.getOpponent().isInCheck() ? CHECK_BONUS : 0;
     }
 
+    // pseudo-legal like SearchBoard.countMoves, a pinned piece still counts its moves
     private static int mobility(final Player player) {
-        return player.getLegalMoves().size();
+        return player.getMobility();
     }
 
-    private static int pieceValue(final Player player) {
+    // counting the pieces of each type straight from the bitboards instead of walking the piece collection
+    private static int pieceValue(final Board board, final Player player) {
+        final BitBoard bitBoard = board.getBitBoard();
         int pieceValueScore = 0;
-        for (final Piece piece : player.getActivePieces()) {
-            pieceValueScore += piece.getPieceValue();
+        for (final PieceType pieceType : PIECE_TYPES) {
+            pieceValueScore += bitBoard.count(pieceType, player.getAlliance()) * pieceType.getPieceValue();
         }
         return pieceValueScore;
     }
@@ -0,0 +1,176 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.SearchBoard;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// a fixed size table of search results keyed by the zobrist key of the position
+// the same position is reached through many move orders "Nf3 then e4 or e4 then Nf3" so a result found once can be reused
+// the entries live in two primitive arrays allocated once up front, storing a result is just writing into them
+// the slot of a position is given by the low bits of its key and the full key is kept to tell positions sharing a slot apart
+//
+// the table can be shared by many searching threads without any locking
+// an entry is one long of data "score, best move, depth and bound" and the key is stored xored with that data
+// if two threads write the same slot at once we may read the key of one and the data of the other
+// but then key ^ data no longer gives back the key we are looking for so the torn entry is just a miss
+public final class TranspositionTable {
+
+    // the kind of score stored in an entry
+    public static final int EMPTY = 0;
+    public static final int EXACT = 1;
+    // the real score is at least the stored one "the search was cut off"
+    public static final int LOWER_BOUND = 2;
+    // the real score is at most the stored one "no move reached the window"
+    public static final int UPPER_BOUND = 3;
+
+    // returned by probe when the position is not in the table, an entry that was stored never has all its bits clear
+    public static final long NOT_FOUND = 0L;
+
+    // bytes used by one entry: key (8) + data (8)
+    public static final int ENTRY_SIZE = 16;
+    public static final int DEFAULT_SIZE_IN_MB = 16;
+
+    // layout of the data long: score in bits 0-31, best move in bits 32-47, depth in bits 48-55, bound in bits 56-57
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+
+    private final ReplacementScheme replacementScheme;
+    private final int mask;
+
+    private final long[] keys;
+    private final long[] data;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder collisions;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_IN_MB, ReplacementScheme.DEPTH_PREFERRED);
+    }
+
+    public TranspositionTable(final int sizeInMB,
+                              final ReplacementScheme replacementScheme) {
+        if (sizeInMB <= 0) {
+            throw new IllegalArgumentException("Invalid transposition table size " + sizeInMB + " MB");
+        }
+        // rounding the number of entries down to a power of two so the slot is just key & mask
+        final long maxEntries = Math.max(1L, (long) sizeInMB * 1024 * 1024 / ENTRY_SIZE);
+        final int numEntries = (int) Long.highestOneBit(Math.min(maxEntries, 1 << 30));
+        this.replacementScheme = replacementScheme;
+        this.mask = numEntries - 1;
+        this.keys = new long[numEntries];
+        this.data = new long[numEntries];
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.collisions = new LongAdder();
+    }
+
+    // returns the entry of the position or NOT_FOUND
+    // the entry is then read with getScore, getDepth, getBound and getBestMove
+    public long probe(final long key) {
+        final int slot = (int) key & this.mask;
+        final long entry = this.data[slot];
+        if (entry != NOT_FOUND && (this.keys[slot] ^ entry) == key) {
+            this.hits.increment();
+            return entry;
+        }
+        // a different position uses the same slot "or another thread was halfway through writing it"
+        if (entry != NOT_FOUND) {
+            this.collisions.increment();
+        }
+        this.misses.increment();
+        return NOT_FOUND;
+    }
+
+    public void store(final long key,
+                      final int depth,
+                      final int score,
+                      final int bound,
+                      final int bestMove) {
+        final int slot = (int) key & this.mask;
+        final long entry = this.data[slot];
+        if (entry == NOT_FOUND || this.replacementScheme.shouldReplace(getDepth(entry), depth)) {
+            // keeping the move we already know about when a new search of the same position found none
+            final int move = bestMove == SearchBoard.NO_MOVE && (this.keys[slot] ^ entry) == key ?
+                    getBestMove(entry) : bestMove;
+            final long newEntry = (score & 0xFFFFFFFFL) |
+                    (long) (move & 0xFFFF) << MOVE_SHIFT |
+                    (long) (depth & 0xFF) << DEPTH_SHIFT |
+                    (long) bound << BOUND_SHIFT;
+            this.data[slot] = newEntry;
+            this.keys[slot] = key ^ newEntry;
+        }
+    }
+
+    public static int getScore(final long entry) {
+        return (int) entry;
+    }
+
+    public static int getBestMove(final long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & 0xFFFF;
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int getBound(final long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    // the number of positions the table can hold
+    public int getCapacity() {
+        return this.keys.length;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    // misses include the collisions
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getCollisions() {
+        return this.collisions.sum();
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.data, NOT_FOUND);
+        this.hits.reset();
+        this.misses.reset();
+        this.collisions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "TT [capacity = " + getCapacity() + ", hits = " + getHits() + ", misses = " + getMisses() +
+                ", collisions = " + getCollisions() + "]";
+    }
+
+    // decides if a new result should overwrite the one already in its slot
+    public enum ReplacementScheme {
+        // the newest result always wins
+        ALWAYS_REPLACE {
+            @Override
+            boolean shouldReplace(final int storedDepth,
+                                  final int depth) {
+                return true;
+            }
+        },
+        // a deeper search is worth more so it is only replaced by one at least as deep
+        DEPTH_PREFERRED {
+            @Override
+            boolean shouldReplace(final int storedDepth,
+                                  final int depth) {
+                return depth >= storedDepth;
+            }
+        };
+
+        abstract boolean shouldReplace(int storedDepth, int depth);
+    }
+}
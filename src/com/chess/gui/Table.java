@@ -3,11 +3,14 @@ package com.chess.gui;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
 import com.chess.engine.board.Tile;
 import com.chess.engine.piece.Piece;
 import com.chess.engine.player.MoveTransition;
-import com.chess.engine.player.ai.MiniMax;
+import com.chess.engine.player.ai.IterativeDeepening;
 import com.chess.engine.player.ai.MoveStrategy;
+import com.chess.engine.player.ai.StandardBoardEvaluator;
+import com.chess.engine.player.ai.TranspositionTable;
 import com.google.common.collect.Lists;
 
 import javax.crypto.spec.DESedeKeySpec;
@@ -38,6 +41,8 @@ public class Table extends Observable {
     private final BoardPanel boardPanel;
     private final MoveLog moveLog;
     private final GameSetup gameSetup;
+    // shared by all the computer's searches of the game
+    private final TranspositionTable transpositionTable;
 
     private Board chessBoard;
 
@@ -53,6 +58,8 @@ public class Table extends Observable {
     private final static Dimension OUTER_FRAME_DIMENSION = new Dimension(600, 600);
     private final static Dimension BOARD_PANEL_DIMENSION = new Dimension(400, 350);
     private final static Dimension TILE_PANEL_DIMENSION = new Dimension(10, 10);
+    // how long the computer may think about a move in milliseconds
+    private final static long AI_THINK_TIME = 3000;
 
     //inserting the file paths for different themed pieces' images
     private final static String simplePieceImagesPath = "art/simple/";
@@ -79,6 +86,7 @@ public class Table extends Observable {
         this.moveLog = new MoveLog();
         this.addObserver(new TableGameAIWatcher());
         this.gameSetup = new GameSetup(this.gameFrame, true);
+        this.transpositionTable = new TranspositionTable();
         this.boardDirection = BoardDirection.NORMAL;
         this.highlightLegalMoves = true;
         this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
@@ -106,6 +114,10 @@ public class Table extends Observable {
         return this.chessBoard;
     }
 
+    private TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
     // method create the menu bar
     private JMenuBar createTableMenuBar() {
         final JMenuBar tableMenuBar = new JMenuBar();
@@ -225,8 +237,9 @@ public class Table extends Observable {
 
         @Override
         protected Move doInBackground() throws Exception {
-            final MoveStrategy miniMax = new MiniMax(4);
-            final Move bestMove = miniMax.execute(Table.get().getGameBoard());
+            final MoveStrategy strategy = new IterativeDeepening(new StandardBoardEvaluator(), SearchBoard.MAX_PLY,
+                    AI_THINK_TIME, IterativeDeepening.NO_BUDGET, Table.get().getTranspositionTable());
+            final Move bestMove = strategy.execute(Table.get().getGameBoard());
             return bestMove;
         }
 
@@ -0,0 +1,350 @@
+package com.chess.pgn;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.piece.Piece.PieceType;
+import com.chess.engine.player.Player;
+
+// writes and reads moves in standard algebraic notation "Nf3, exd5, Nbd7, O-O, e8=Q+" as used in PGN
+// and in the long algebraic notation of the UCI protocol "g1f3, e5d6, e1g1, e7e8q"
+// a move is never searched for in the move lists, the tiles it can come from are read off the attack tables
+// and the move itself is looked up by its tiles with Player.getLegalMove
+public class AlgebraicNotation {
+
+    private static final int NO_FILE = -1;
+    private static final int NO_RANK = -1;
+
+    private AlgebraicNotation() {
+        throw new RuntimeException("Not instantiable! ");
+    }
+
+    // the legal move of the side to move that the SAN text names
+    // one check or mate sign and an annotation of up to two characters like "!?" are allowed at the end and ignored
+    // throws IllegalArgumentException if the text is not SAN or names no legal move or more than one
+    public static Move createMoveFromSAN(final Board board, final CharSequence san) {
+        int end = san.length();
+        // dropping the annotation and then the check sign at the end
+        for (int i = 0; i < 2 && end > 0 && isAnnotation(san.charAt(end - 1)); i++) {
+            end--;
+        }
+        if (end > 0 && isCheckSign(san.charAt(end - 1))) {
+            end--;
+        }
+        if (end < 2) {
+            throw invalidSAN(san, "too short");
+        }
+
+        /* CASTLING */
+
+        final char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            final boolean kingSide;
+            if (end == 3 && isCastle(san, first, 3)) {
+                kingSide = true;
+            } else if (end == 5 && isCastle(san, first, 5)) {
+                kingSide = false;
+            } else {
+                throw invalidSAN(san, "invalid castling");
+            }
+            final int kingTile = board.currentPlayer().getPlayerKing().getPiecePosition();
+            final Move move = board.currentPlayer().getLegalMove(kingTile, kingTile + (kingSide ? 2 : -2));
+            if (move == null || !move.isCastlingMove()) {
+                throw invalidSAN(san, "castling is not legal");
+            }
+            return move;
+        }
+
+        /* PIECE, PROMOTION AND DESTINATION */
+
+        int start = 0;
+        final PieceType pieceType = pieceTypeOf(first);
+        if (pieceType != PieceType.PAWN) {
+            start++;
+        }
+        PieceType promotionType = null;
+        if (isPieceLetter(san.charAt(end - 1))) {
+            promotionType = pieceTypeOf(san.charAt(end - 1));
+            end--;
+            // the = before the promotion piece is optional
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))) {
+            throw invalidSAN(san, "no destination tile");
+        }
+        final int destination = tileOf(san.charAt(end - 2), san.charAt(end - 1));
+        end -= 2;
+        final boolean isCapture = end > start && san.charAt(end - 1) == 'x';
+        if (isCapture) {
+            end--;
+        }
+
+        /* DISAMBIGUATION */
+
+        // whatever is left between the piece and the destination is the file, the rank or the tile the piece comes from
+        int fromFile = NO_FILE;
+        int fromRank = NO_RANK;
+        for (int i = start; i < end; i++) {
+            final char c = san.charAt(i);
+            if (isFile(c) && fromFile == NO_FILE) {
+                fromFile = c - 'a';
+            } else if (isRank(c) && fromRank == NO_RANK) {
+                fromRank = c - '1';
+            } else {
+                throw invalidSAN(san, "invalid disambiguation");
+            }
+        }
+        if ((promotionType != null) != (pieceType == PieceType.PAWN && isPromotionRank(destination))) {
+            throw invalidSAN(san, "invalid promotion");
+        }
+        if (pieceType == PieceType.PAWN && isCapture && fromFile == NO_FILE) {
+            throw invalidSAN(san, "pawn capture without the file it comes from");
+        }
+
+        // every tile a piece of that type could have come from, narrowed down by the disambiguation
+        final Player player = board.currentPlayer();
+        long origins = candidateOrigins(board, pieceType, destination, player.getAlliance(), fromFile != NO_FILE);
+        Move foundMove = null;
+        while (origins != 0) {
+            final int from = BitBoard.firstTile(origins);
+            origins &= origins - 1;
+            if ((fromFile != NO_FILE && from % BoardUtils.NUM_TILES_PER_ROW != fromFile) ||
+                    (fromRank != NO_RANK && 7 - from / BoardUtils.NUM_TILES_PER_ROW != fromRank)) {
+                continue;
+            }
+            final Move move = player.getLegalMove(from, destination);
+            if (move == null || move.isCastlingMove()) {
+                continue;
+            }
+            if (foundMove != null) {
+                throw invalidSAN(san, "ambiguous move");
+            }
+            foundMove = move;
+        }
+        if (foundMove == null) {
+            throw invalidSAN(san, "no such legal move");
+        }
+        if (isCapture && !foundMove.isAttack()) {
+            throw invalidSAN(san, "nothing to capture");
+        }
+        if (promotionType != null && ((Move.PawnPromotion) foundMove).getPromotionPiece().getPieceType() != promotionType) {
+            throw invalidSAN(san, "only promotions to a queen are supported");
+        }
+        return foundMove;
+    }
+
+    // the legal move of the side to move written in long algebraic notation "e2e4, e1g1 for castling, e7e8q"
+    // throws IllegalArgumentException if the text is not in that notation or names no legal move
+    public static Move createMoveFromUCI(final Board board, final CharSequence uci) {
+        final int length = uci.length();
+        if ((length != 4 && length != 5) ||
+                !isFile(uci.charAt(0)) || !isRank(uci.charAt(1)) || !isFile(uci.charAt(2)) || !isRank(uci.charAt(3))) {
+            throw invalidUCI(uci, "not a move");
+        }
+        final Move move = board.currentPlayer().getLegalMove(tileOf(uci.charAt(0), uci.charAt(1)), tileOf(uci.charAt(2), uci.charAt(3)));
+        if (move == null) {
+            throw invalidUCI(uci, "no such legal move");
+        }
+        final boolean isPromotion = move instanceof Move.PawnPromotion;
+        if (isPromotion != (length == 5)) {
+            throw invalidUCI(uci, isPromotion ? "missing promotion piece" : "not a promotion");
+        }
+        if (isPromotion && ((Move.PawnPromotion) move).getPromotionPiece().getPieceType() !=
+                pieceTypeOf(Character.toUpperCase(uci.charAt(4)))) {
+            throw invalidUCI(uci, "only promotions to a queen are supported");
+        }
+        return move;
+    }
+
+    /* WRITING MOVES */
+
+    // the SAN of a move of the side to move on its board, with + for a check and # for a mate
+    // the piece is only disambiguated when another piece of the same type can legally go to the same tile
+    // first by the file it comes from, then by the rank and by both only if neither is enough on its own
+    public static String toSAN(final Move move) {
+        final StringBuilder builder = new StringBuilder(8);
+        appendSAN(move, builder);
+        final Board nextBoard = move.execute();
+        if (nextBoard.currentPlayer().isInCheck()) {
+            builder.append(nextBoard.currentPlayer().isInCheckMate() ? '#' : '+');
+        }
+        return builder.toString();
+    }
+
+    private static void appendSAN(final Move move, final StringBuilder builder) {
+        final int from = move.getCurrentCoordinate();
+        final int to = move.getDestinationCoordinate();
+        if (move.isCastlingMove()) {
+            builder.append(to % BoardUtils.NUM_TILES_PER_ROW == 6 ? "O-O" : "O-O-O");
+            return;
+        }
+        final PieceType pieceType = move.getMovedPiece().getPieceType();
+        if (pieceType == PieceType.PAWN) {
+            if (move.isAttack()) {
+                builder.append(fileOf(from)).append('x');
+            }
+            appendTile(to, builder);
+            if (move instanceof Move.PawnPromotion) {
+                builder.append('=').append(((Move.PawnPromotion) move).getPromotionPiece().getPieceType().toString());
+            }
+            return;
+        }
+        builder.append(pieceType.toString());
+        final Board board = move.getBoard();
+        final Player player = board.currentPlayer();
+        long rivals = candidateOrigins(board, pieceType, to, player.getAlliance(), false) & ~BitBoard.tileMask(from);
+        boolean isAmbiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        while (rivals != 0) {
+            final int rival = BitBoard.firstTile(rivals);
+            rivals &= rivals - 1;
+            if (player.getLegalMove(rival, to) != null) {
+                isAmbiguous = true;
+                sameFile |= rival % BoardUtils.NUM_TILES_PER_ROW == from % BoardUtils.NUM_TILES_PER_ROW;
+                sameRank |= rival / BoardUtils.NUM_TILES_PER_ROW == from / BoardUtils.NUM_TILES_PER_ROW;
+            }
+        }
+        if (isAmbiguous) {
+            if (!sameFile) {
+                builder.append(fileOf(from));
+            } else if (!sameRank) {
+                builder.append(rankOf(from));
+            } else {
+                builder.append(fileOf(from)).append(rankOf(from));
+            }
+        }
+        if (move.isAttack()) {
+            builder.append('x');
+        }
+        appendTile(to, builder);
+    }
+
+    // the long algebraic notation of a move "from tile, to tile and the promotion piece in lower case"
+    public static String toUCI(final Move move) {
+        final StringBuilder builder = new StringBuilder(5);
+        appendTile(move.getCurrentCoordinate(), builder);
+        appendTile(move.getDestinationCoordinate(), builder);
+        if (move instanceof Move.PawnPromotion) {
+            builder.append(Character.toLowerCase(((Move.PawnPromotion) move).getPromotionPiece().getPieceType().toString().charAt(0)));
+        }
+        return builder.toString();
+    }
+
+    // the tiles holding a piece of the given type and alliance that could reach the destination, legal or not
+    // that is the attacks of such a piece standing on the destination "a knight on f3 is reached from where a knight on f3 attacks"
+    // pawns are the exception as they move and capture differently, isCapture picks which of the two we are after
+    private static long candidateOrigins(final Board board,
+                                         final PieceType pieceType,
+                                         final int destination,
+                                         final Alliance alliance,
+                                         final boolean isCapture) {
+        final BitBoard bitBoard = board.getBitBoard();
+        final long occupancy = bitBoard.getOccupancy();
+        final long pieces = bitBoard.getPieces(pieceType, alliance);
+        switch (pieceType) {
+            case PAWN:
+                if (isCapture) {
+                    // our pawns capturing onto the destination stand where an opponent pawn on it would capture
+                    return AttackTables.pawnAttacks(destination, alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE) & pieces;
+                }
+                final int oneStepBack = destination + BoardUtils.NUM_TILES_PER_ROW * alliance.getOppositeDirection();
+                final int twoStepsBack = oneStepBack + BoardUtils.NUM_TILES_PER_ROW * alliance.getOppositeDirection();
+                long origins = BoardUtils.isValidTileCoordinate(oneStepBack) ? BitBoard.tileMask(oneStepBack) : BitBoard.EMPTY;
+                if (BoardUtils.isValidTileCoordinate(twoStepsBack)) {
+                    origins |= BitBoard.tileMask(twoStepsBack);
+                }
+                return origins & pieces;
+            case KNIGHT:
+                return AttackTables.knightAttacks(destination) & pieces;
+            case BISHOP:
+                return AttackTables.bishopAttacks(destination, occupancy) & pieces;
+            case ROOK:
+                return AttackTables.rookAttacks(destination, occupancy) & pieces;
+            case QUEEN:
+                return AttackTables.queenAttacks(destination, occupancy) & pieces;
+            default:
+                return AttackTables.kingAttacks(destination) & pieces;
+        }
+    }
+
+    private static boolean isCastle(final CharSequence san, final char castleLetter, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (san.charAt(i) != (i % 2 == 0 ? castleLetter : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCheckSign(final char c) {
+        return c == '+' || c == '#';
+    }
+
+    private static boolean isAnnotation(final char c) {
+        return c == '!' || c == '?';
+    }
+
+    private static boolean isPieceLetter(final char c) {
+        return c == 'N' || c == 'B' || c == 'R' || c == 'Q' || c == 'K';
+    }
+
+    private static PieceType pieceTypeOf(final char c) {
+        switch (c) {
+            case 'N':
+                return PieceType.KNIGHT;
+            case 'B':
+                return PieceType.BISHOP;
+            case 'R':
+                return PieceType.ROOK;
+            case 'Q':
+                return PieceType.QUEEN;
+            case 'K':
+                return PieceType.KING;
+            default:
+                return PieceType.PAWN;
+        }
+    }
+
+    private static boolean isFile(final char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(final char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static boolean isPromotionRank(final int tile) {
+        return BoardUtils.EIGHTH_RANK[tile] || BoardUtils.FIRST_RANK[tile];
+    }
+
+    // tile ids go from a8 = 0 to h1 = 63
+    private static int tileOf(final char file, final char rank) {
+        return ('8' - rank) * BoardUtils.NUM_TILES_PER_ROW + (file - 'a');
+    }
+
+    private static char fileOf(final int tile) {
+        return (char) ('a' + tile % BoardUtils.NUM_TILES_PER_ROW);
+    }
+
+    private static char rankOf(final int tile) {
+        return (char) ('8' - tile / BoardUtils.NUM_TILES_PER_ROW);
+    }
+
+    private static void appendTile(final int tile, final StringBuilder builder) {
+        builder.append(fileOf(tile)).append(rankOf(tile));
+    }
+
+    private static IllegalArgumentException invalidUCI(final CharSequence uci, final String reason) {
+        return new IllegalArgumentException("Invalid UCI move, " + reason + ": " + uci);
+    }
+
+    private static IllegalArgumentException invalidSAN(final CharSequence san, final String reason) {
+        return new IllegalArgumentException("Invalid SAN move, " + reason + ": " + san);
+    }
+}
@@ -1,8 +1,17 @@
 package com.chess.pgn;
 
+import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
+import com.chess.engine.piece.Bishop;
+import com.chess.engine.piece.King;
+import com.chess.engine.piece.Knight;
 import com.chess.engine.piece.Pawn;
+import com.chess.engine.piece.Piece;
+import com.chess.engine.piece.Queen;
+import com.chess.engine.piece.Rook;
+
+import java.io.IOException;
 
 public class FenUtilities {
 
@@ -10,74 +19,373 @@ public class FenUtilities {
         throw new RuntimeException("Not instantiable! ");
     }
 
-    public static Board createGameFromFEN(final String fenString) {
-        return null;
+    // builds the board of a FEN record "placement, side to move, castling, en passant, halfmove clock and fullmove number"
+    // the record is read in a single pass over its characters, nothing is split or matched so no strings are created
+    // the two move counters may be left out, a lot of position feeds only give the first four fields
+    public static Board createGameFromFEN(final CharSequence fenString) {
+        final Piece[] pieces = new Piece[BoardUtils.NUM_TILES];
+        final int length = fenString.length();
+        int index = 0;
+
+        /* PIECE PLACEMENT */
+
+        // the tiles come rank by rank from a8 to h1 which is exactly the order of our tile ids
+        int rank = 0;
+        int file = 0;
+        int whiteKingTile = -1;
+        int blackKingTile = -1;
+        char c;
+        while (index < length && (c = fenString.charAt(index)) != ' ') {
+            if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else if (c == '/') {
+                if (file != BoardUtils.NUM_TILES_PER_ROW) {
+                    throw invalidFEN(fenString, "rank does not have 8 tiles");
+                }
+                if (++rank == BoardUtils.NUM_TILES_PER_ROW) {
+                    throw invalidFEN(fenString, "more than 8 ranks");
+                }
+                file = 0;
+            } else {
+                if (file >= BoardUtils.NUM_TILES_PER_ROW) {
+                    throw invalidFEN(fenString, "rank does not have 8 tiles");
+                }
+                final int tile = rank * BoardUtils.NUM_TILES_PER_ROW + file;
+                final Piece piece = createPiece(fenString, c, tile);
+                if (piece.getPieceType() == Piece.PieceType.PAWN && (rank == 0 || rank == BoardUtils.NUM_TILES_PER_ROW - 1)) {
+                    throw invalidFEN(fenString, "pawn on the first or the last rank");
+                }
+                if (piece.getPieceType() == Piece.PieceType.KING) {
+                    if ((piece.getPieceAlliance().isWhite() ? whiteKingTile : blackKingTile) != -1) {
+                        throw invalidFEN(fenString, "more than one king of a side");
+                    }
+                    if (piece.getPieceAlliance().isWhite()) {
+                        whiteKingTile = tile;
+                    } else {
+                        blackKingTile = tile;
+                    }
+                }
+                pieces[tile] = piece;
+                file++;
+            }
+            if (file > BoardUtils.NUM_TILES_PER_ROW) {
+                throw invalidFEN(fenString, "rank does not have 8 tiles");
+            }
+            index++;
+        }
+        if (rank != BoardUtils.NUM_TILES_PER_ROW - 1 || file != BoardUtils.NUM_TILES_PER_ROW) {
+            throw invalidFEN(fenString, "placement does not have 8 ranks of 8 tiles");
+        }
+        // the board cannot even be built without both kings
+        if (whiteKingTile == -1 || blackKingTile == -1) {
+            throw invalidFEN(fenString, "a side has no king");
+        }
+        index = skipSpace(fenString, index);
+
+        /* SIDE TO MOVE */
+
+        if (index >= length) {
+            throw invalidFEN(fenString, "missing side to move");
+        }
+        final Alliance moveMaker;
+        switch (fenString.charAt(index++)) {
+            case 'w':
+                moveMaker = Alliance.WHITE;
+                break;
+            case 'b':
+                moveMaker = Alliance.BLACK;
+                break;
+            default:
+                throw invalidFEN(fenString, "side to move is not w or b");
+        }
+        index = skipSpace(fenString, index);
+
+        /* CASTLING */
+
+        boolean whiteKingSide = false;
+        boolean whiteQueenSide = false;
+        boolean blackKingSide = false;
+        boolean blackQueenSide = false;
+        while (index < length && (c = fenString.charAt(index)) != ' ') {
+            switch (c) {
+                case 'K':
+                    whiteKingSide = true;
+                    break;
+                case 'Q':
+                    whiteQueenSide = true;
+                    break;
+                case 'k':
+                    blackKingSide = true;
+                    break;
+                case 'q':
+                    blackQueenSide = true;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw invalidFEN(fenString, "unknown castling right " + c);
+            }
+            index++;
+        }
+        index = skipSpace(fenString, index);
+        // a castling right is kept on the board as a king and a rook that have not moved yet
+        setCastlingRights(pieces, Alliance.WHITE, 60, 63, 56, whiteKingSide, whiteQueenSide);
+        setCastlingRights(pieces, Alliance.BLACK, 4, 7, 0, blackKingSide, blackQueenSide);
+
+        final Board.Builder builder = new Board.Builder();
+        for (final Piece piece : pieces) {
+            if (piece != null) {
+                builder.setPiece(piece);
+            }
+        }
+        builder.setMoveMaker(moveMaker);
+
+        /* EN PASSANT */
+
+        if (index >= length) {
+            throw invalidFEN(fenString, "missing en passant tile");
+        }
+        if (fenString.charAt(index) == '-') {
+            index++;
+        } else {
+            if (index + 1 >= length) {
+                throw invalidFEN(fenString, "incomplete en passant tile");
+            }
+            final int passedFile = fenString.charAt(index) - 'a';
+            final int passedRank = fenString.charAt(index + 1) - '0';
+            if (passedFile < 0 || passedFile > 7 || (passedRank != 3 && passedRank != 6)) {
+                throw invalidFEN(fenString, "invalid en passant tile");
+            }
+            // the tile is the one the pawn jumped over, the pawn itself stands one step further from its own side
+            final int passedTile = (8 - passedRank) * BoardUtils.NUM_TILES_PER_ROW + passedFile;
+            final int pawnTile = passedTile + BoardUtils.NUM_TILES_PER_ROW * moveMaker.getOppositeDirection();
+            final Piece enPassantPawn = pieces[pawnTile];
+            if (enPassantPawn == null || enPassantPawn.getPieceType() != Piece.PieceType.PAWN ||
+                    enPassantPawn.getPieceAlliance() == moveMaker) {
+                throw invalidFEN(fenString, "no pawn to take en passant");
+            }
+            builder.setEnPassantPawn((Pawn) enPassantPawn);
+            index += 2;
+        }
+        index = skipSpace(fenString, index);
+
+        /* MOVE COUNTERS */
+
+        int halfMoveClock = 0;
+        int fullMoveNumber = 1;
+        if (index < length) {
+            while (index < length && (c = fenString.charAt(index)) != ' ') {
+                halfMoveClock = appendDigit(fenString, halfMoveClock, c);
+                index++;
+            }
+            index = skipSpace(fenString, index);
+            if (index < length) {
+                fullMoveNumber = 0;
+                while (index < length && (c = fenString.charAt(index)) != ' ') {
+                    fullMoveNumber = appendDigit(fenString, fullMoveNumber, c);
+                    index++;
+                }
+                index = skipSpace(fenString, index);
+            }
+        }
+        if (index < length) {
+            throw invalidFEN(fenString, "unexpected text after the move counters");
+        }
+        builder.setHalfMoveClock(halfMoveClock);
+        builder.setFullMoveNumber(fullMoveNumber);
+        final Board board = builder.build();
+        // the side that just moved cannot have left its king in check, the side to move would take the king
+        if (board.isSquareAttacked(moveMaker.isWhite() ? blackKingTile : whiteKingTile, moveMaker)) {
+            throw invalidFEN(fenString, "the side not to move is in check");
+        }
+        return board;
     }
 
     public static String parseFEN(final Board board) {
-        return calculateBoardText(board) + " " +
-                calculateCurrentPlayerText(board) + " " +
-                calculateCastleText(board) + " " +
-                calculateEnPassantSquare(board) + " " +
-                "0 1";
+        final StringBuilder builder = new StringBuilder(90);
+        appendFEN(board, builder);
+        return builder.toString();
+    }
+
+    // writes the FEN record of the board at the end of the builder
+    public static void appendFEN(final Board board, final StringBuilder builder) {
+        try {
+            appendFEN(board, (Appendable) builder);
+        } catch (final IOException e) {
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // writes the FEN record of the board one character at a time, straight from the tiles, the castle bits and the counters
+    // nothing is built up on the side so a logger can stream positions into a Writer without creating any strings
+    public static void appendFEN(final Board board, final Appendable out) throws IOException {
+        appendBoardText(board, out);
+        out.append(' ');
+        out.append(board.currentPlayer().getAlliance().isWhite() ? 'w' : 'b');
+        out.append(' ');
+        appendCastleText(board, out);
+        out.append(' ');
+        appendEnPassantSquare(board, out);
+        out.append(' ');
+        appendNumber(board.getHalfMoveClock(), out);
+        out.append(' ');
+        appendNumber(board.getFullMoveNumber(), out);
     }
 
-    private static String calculateBoardText(final Board board) {
-        final StringBuilder builder = new StringBuilder();
+    // a run of empty tiles is written as its length, it is flushed when a piece or the end of the rank is reached
+    private static void appendBoardText(final Board board, final Appendable out) throws IOException {
+        int emptyTiles = 0;
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            final String tileText = board.getTile(i).toString();
-            builder.append(tileText);
-        }
-        builder.insert(8, "/");
-        builder.insert(17, "/");
-        builder.insert(26, "/");
-        builder.insert(35, "/");
-        builder.insert(44, "/");
-        builder.insert(53, "/");
-        builder.insert(62, "/");
-
-        return builder.toString()
-                .replaceAll("--------", "8")
-                .replaceAll("-------", "7")
-                .replaceAll("------", "6")
-                .replaceAll("-----", "5")
-                .replaceAll("----", "4")
-                .replaceAll("---", "3")
-                .replaceAll("--", "2")
-                .replaceAll("-", "1");
+            final Piece piece = board.getTile(i).getPiece();
+            if (piece == null) {
+                emptyTiles++;
+            } else {
+                if (emptyTiles != 0) {
+                    out.append((char) ('0' + emptyTiles));
+                    emptyTiles = 0;
+                }
+                final char pieceName = piece.getPieceType().toString().charAt(0);
+                out.append(piece.getPieceAlliance().isWhite() ? pieceName : Character.toLowerCase(pieceName));
+            }
+            if ((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0) {
+                if (emptyTiles != 0) {
+                    out.append((char) ('0' + emptyTiles));
+                    emptyTiles = 0;
+                }
+                if (i != BoardUtils.NUM_TILES - 1) {
+                    out.append('/');
+                }
+            }
+        }
     }
 
-    private static String calculateEnPassantSquare(final Board board) {
+    // the tile the jumping pawn passed over, one step back towards its own side
+    private static void appendEnPassantSquare(final Board board, final Appendable out) throws IOException {
         final Pawn enPassantPawn = board.getEnPassantPawn();
-        if (enPassantPawn != null) {
-            return BoardUtils.getPositionAtCoordinate(enPassantPawn.getPiecePosition() +
-                    (8) * enPassantPawn.getPieceAlliance().getOppositeDirection());
+        if (enPassantPawn == null) {
+            out.append('-');
+            return;
         }
-        return "-";
+        final int passedTile = enPassantPawn.getPiecePosition() +
+                BoardUtils.NUM_TILES_PER_ROW * enPassantPawn.getPieceAlliance().getOppositeDirection();
+        out.append((char) ('a' + passedTile % BoardUtils.NUM_TILES_PER_ROW));
+        out.append((char) ('8' - passedTile / BoardUtils.NUM_TILES_PER_ROW));
     }
 
-    private static String calculateCastleText(final Board board) {
-        final StringBuilder builder = new StringBuilder();
-        if (board.whitePlayer().isKingSideCastleCapable()) {
-            builder.append("K");
+    private static void appendCastleText(final Board board, final Appendable out) throws IOException {
+        final int castlingRights = board.getCastlingRights();
+        if (castlingRights == 0) {
+            out.append('-');
+            return;
+        }
+        if ((castlingRights & BoardUtils.WHITE_KING_SIDE_CASTLE) != 0) {
+            out.append('K');
         }
-        if (board.whitePlayer().isQueenSideCastleCapable()) {
-            builder.append("Q");
+        if ((castlingRights & BoardUtils.WHITE_QUEEN_SIDE_CASTLE) != 0) {
+            out.append('Q');
         }
-        if (board.blackPlayer().isKingSideCastleCapable()) {
-            builder.append("k");
+        if ((castlingRights & BoardUtils.BLACK_KING_SIDE_CASTLE) != 0) {
+            out.append('k');
         }
-        if (board.blackPlayer().isQueenSideCastleCapable()) {
-            builder.append("q");
+        if ((castlingRights & BoardUtils.BLACK_QUEEN_SIDE_CASTLE) != 0) {
+            out.append('q');
         }
-        final String result = builder.toString();
+    }
 
-        return result.isEmpty() ? "-" : result;
+    // writes the digits of a non negative number without turning it into a string first
+    private static void appendNumber(final int number, final Appendable out) throws IOException {
+        int divisor = 1;
+        while (number / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + number / divisor % 10));
+        }
     }
 
-    private static String calculateCurrentPlayerText(final Board board) {
-        return board.currentPlayer().toString().substring(0, 1).toLowerCase();
+    // pawns still on their start rank can jump, every other piece is placed as if it already moved
+    // kings and rooks only become unmoved again once the castling field says so
+    private static Piece createPiece(final CharSequence fenString, final char c, final int tile) {
+        switch (c) {
+            case 'P':
+                return Pawn.createPawn(Alliance.WHITE, tile, BoardUtils.SECOND_RANK[tile]);
+            case 'p':
+                return Pawn.createPawn(Alliance.BLACK, tile, BoardUtils.SEVENTH_RANK[tile]);
+            case 'N':
+                return Knight.createKnight(Alliance.WHITE, tile, false);
+            case 'n':
+                return Knight.createKnight(Alliance.BLACK, tile, false);
+            case 'B':
+                return Bishop.createBishop(Alliance.WHITE, tile, false);
+            case 'b':
+                return Bishop.createBishop(Alliance.BLACK, tile, false);
+            case 'R':
+                return Rook.createRook(Alliance.WHITE, tile, false);
+            case 'r':
+                return Rook.createRook(Alliance.BLACK, tile, false);
+            case 'Q':
+                return Queen.createQueen(Alliance.WHITE, tile, false);
+            case 'q':
+                return Queen.createQueen(Alliance.BLACK, tile, false);
+            case 'K':
+                return King.createKing(Alliance.WHITE, tile, false, false, false, false);
+            case 'k':
+                return King.createKing(Alliance.BLACK, tile, false, false, false, false);
+            default:
+                throw invalidFEN(fenString, "unknown piece " + c);
+        }
     }
 
+    // a right only counts if the king and the rook of that wing are still on their start tiles
+    private static void setCastlingRights(final Piece[] pieces,
+                                          final Alliance alliance,
+                                          final int kingTile,
+                                          final int kingSideRookTile,
+                                          final int queenSideRookTile,
+                                          boolean kingSide,
+                                          boolean queenSide) {
+        if (!isPiece(pieces[kingTile], Piece.PieceType.KING, alliance)) {
+            return;
+        }
+        kingSide &= isPiece(pieces[kingSideRookTile], Piece.PieceType.ROOK, alliance);
+        queenSide &= isPiece(pieces[queenSideRookTile], Piece.PieceType.ROOK, alliance);
+        if (kingSide) {
+            pieces[kingSideRookTile] = Rook.createRook(alliance, kingSideRookTile, true);
+        }
+        if (queenSide) {
+            pieces[queenSideRookTile] = Rook.createRook(alliance, queenSideRookTile, true);
+        }
+        if (kingSide || queenSide) {
+            pieces[kingTile] = King.createKing(alliance, kingTile, kingSide, queenSide);
+        }
+    }
+
+    private static boolean isPiece(final Piece piece,
+                                   final Piece.PieceType pieceType,
+                                   final Alliance alliance) {
+        return piece != null && piece.getPieceType() == pieceType && piece.getPieceAlliance() == alliance;
+    }
+
+    private static int skipSpace(final CharSequence fenString, int index) {
+        while (index < fenString.length() && fenString.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    // a counter too large for an int is as broken as one with a letter in it, it is not wrapped around
+    private static int appendDigit(final CharSequence fenString, final int number, final char c) {
+        if (c < '0' || c > '9') {
+            throw invalidFEN(fenString, "move counter is not a number");
+        }
+        if (number > (Integer.MAX_VALUE - (c - '0')) / 10) {
+            throw invalidFEN(fenString, "move counter is too large");
+        }
+        return number * 10 + c - '0';
+    }
 
+    private static IllegalArgumentException invalidFEN(final CharSequence fenString, final String reason) {
+        return new IllegalArgumentException("Invalid FEN, " + reason + ": " + fenString);
+    }
 }
@@ -0,0 +1,64 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+// one game read from a PGN file: its tag pairs, its moves replayed on a Board and its result
+// every move keeps the board it was played on so the positions of the game can be walked through the moves
+public final class PGNGame {
+
+    private final ImmutableMap<String, String> tags;
+    private final ImmutableList<Move> moves;
+    private final Board startBoard;
+    private final Board finalBoard;
+    private final String result;
+
+    PGNGame(final Map<String, String> tags,
+            final ImmutableList<Move> moves,
+            final Board startBoard,
+            final Board finalBoard,
+            final String result) {
+        this.tags = ImmutableMap.copyOf(tags);
+        this.moves = moves;
+        this.startBoard = startBoard;
+        this.finalBoard = finalBoard;
+        this.result = result;
+    }
+
+    // the tag pairs in the order they were written, "Event", "White", "Result" ...etc.
+    public ImmutableMap<String, String> getTags() {
+        return this.tags;
+    }
+
+    // the value of a tag or null if the game does not have it
+    public String getTag(final String name) {
+        return this.tags.get(name);
+    }
+
+    public ImmutableList<Move> getMoves() {
+        return this.moves;
+    }
+
+    // the standard board, or the position of the FEN tag for games that do not start from the standard position
+    public Board getStartBoard() {
+        return this.startBoard;
+    }
+
+    public Board getFinalBoard() {
+        return this.finalBoard;
+    }
+
+    // "1-0", "0-1", "1/2-1/2" or "*" for a game that is unfinished or whose result is unknown
+    public String getResult() {
+        return this.result;
+    }
+
+    @Override
+    public String toString() {
+        return getTag("White") + " - " + getTag("Black") + " " + this.result + " [" + this.moves.size() + " plies]";
+    }
+}
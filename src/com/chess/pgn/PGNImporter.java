@@ -0,0 +1,234 @@
+package com.chess.pgn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// imports a whole PGN file on all cores into a PositionIndex
+// the file is memory mapped and cut into chunks that each start exactly where a PGNReader reading the whole file would start a game,
+// every chunk is then read by its own PGNReader on a pool thread into its own index
+// the chunk indexes and their diagnostics are merged in file order so the result does not depend on the thread timing
+public final class PGNImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    // how much of the file we map at a time while looking for the starts of the games
+    private static final int SCAN_WINDOW = 1 << 20;
+
+    private PGNImporter() {
+        throw new RuntimeException("Not instantiable! ");
+    }
+
+    public static PositionIndex importFile(final Path path,
+                                           final int maxPly,
+                                           final Consumer<String> diagnostics) throws IOException {
+        return importFile(path, maxPly, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, diagnostics);
+    }
+
+    // the diagnostics get the games that were skipped and at the end a summary of the import
+    public static PositionIndex importFile(final Path path,
+                                           final int maxPly,
+                                           final int parallelism,
+                                           final int chunkSize,
+                                           final Consumer<String> diagnostics) throws IOException {
+        final long startTime = System.currentTimeMillis();
+        final PositionIndex index = new PositionIndex(maxPly);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long[] boundaries = findGameBoundaries(channel, chunkSize);
+            final List<Future<ChunkResult>> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                final long start = boundaries[i];
+                final long end = boundaries[i + 1];
+                chunks.add(pool.submit(() -> importChunk(channel, start, end, maxPly)));
+            }
+            // merging in file order, whichever chunk finished first
+            for (final Future<ChunkResult> chunk : chunks) {
+                final ChunkResult result = chunk.get();
+                index.merge(result.index);
+                result.diagnostics.forEach(diagnostics);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PGN import interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        final long executionTime = Math.max(1, System.currentTimeMillis() - startTime);
+        diagnostics.accept("Imported " + path + " " + index + " [time = " + executionTime + " ms, games/s = " +
+                index.getGames() * 1000 / executionTime + "]");
+        return index;
+    }
+
+    // the byte offsets the chunks start at, the first is 0 and the last one is the size of the file
+    // every offset in between is the start of the first game at or after chunkSize bytes past the previous offset
+    // the whole file is scanned once in order since whether a line starts a game depends on the comments before it
+    static long[] findGameBoundaries(final FileChannel channel, final int chunkSize) throws IOException {
+        final long size = channel.size();
+        final List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        final GameStartScanner scanner = new GameStartScanner();
+        long nextBoundary = chunkSize;
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW) {
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(SCAN_WINDOW, size - windowStart));
+            for (int i = 0; i < window.limit(); i++) {
+                if (scanner.isGameStart(window.get(i)) && windowStart + i >= nextBoundary) {
+                    boundaries.add(windowStart + i);
+                    nextBoundary = windowStart + i + chunkSize;
+                }
+            }
+        }
+        boundaries.add(size);
+        final long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private static ChunkResult importChunk(final FileChannel channel,
+                                           final long start,
+                                           final long end,
+                                           final int maxPly) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("No game starts between bytes " + start + " and " + end + ", the chunk is too large to map");
+        }
+        final ChunkResult result = new ChunkResult(maxPly);
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        final PGNReader reader = new PGNReader(new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8),
+                diagnostic -> result.diagnostics.add("[chunk at byte " + start + "] " + diagnostic));
+        PGNGame game;
+        while ((game = reader.nextGame()) != null) {
+            result.index.addGame(game);
+        }
+        result.index.addSkippedGames(reader.getGamesSkipped());
+        return result;
+    }
+
+    // follows the bytes of a PGN file the way PGNReader follows its lines to tell where a game starts
+    // a game starts at a line beginning with [ after some move text, unless the [ is inside a {...} comment
+    // lines that are too long or past the move text limit are not counted by the reader and so not counted here either
+    // the limits are counted in bytes and the reader counts characters, they only differ for text that is not ASCII
+    private static final class GameStartScanner {
+
+        private boolean inMoveText;
+        private int commentDepth;
+        private int moveTextLength;
+        // the line being scanned
+        private boolean isMoveTextLine;
+        private boolean isBlankSoFar = true;
+        private int lineLength;
+        private int firstNonBlank;
+        private int lastNonBlank;
+        private int lineCommentDepth;
+
+        // true if this byte is the [ that starts a new game
+        boolean isGameStart(final byte b) {
+            final int c = b & 0xFF;
+            if (c == '\n' || c == '\r') {
+                endLine();
+                return false;
+            }
+            boolean isGameStart = false;
+            // String.trim drops everything up to the space
+            if (c > ' ') {
+                if (this.isBlankSoFar) {
+                    this.isBlankSoFar = false;
+                    this.firstNonBlank = this.lineLength;
+                    if (c == '[' && this.commentDepth <= 0) {
+                        isGameStart = this.inMoveText;
+                        if (isGameStart) {
+                            this.inMoveText = false;
+                            this.commentDepth = 0;
+                            this.moveTextLength = 0;
+                        }
+                    } else if (c != '%') {
+                        this.isMoveTextLine = true;
+                        this.inMoveText = true;
+                    }
+                }
+                this.lastNonBlank = this.lineLength;
+                if (this.isMoveTextLine) {
+                    if (c == '{') {
+                        this.lineCommentDepth++;
+                    } else if (c == '}') {
+                        this.lineCommentDepth--;
+                    }
+                }
+            }
+            this.lineLength++;
+            return isGameStart;
+        }
+
+        private void endLine() {
+            if (this.isMoveTextLine && this.lineLength <= PGNReader.MAX_LINE_LENGTH) {
+                final int trimmedLength = this.lastNonBlank - this.firstNonBlank + 1;
+                if (this.moveTextLength + trimmedLength < PGNReader.MAX_MOVE_TEXT_LENGTH) {
+                    this.moveTextLength += trimmedLength + 1;
+                    this.commentDepth += this.lineCommentDepth;
+                }
+            }
+            this.isMoveTextLine = false;
+            this.isBlankSoFar = true;
+            this.lineLength = 0;
+            this.lineCommentDepth = 0;
+        }
+    }
+
+    private static final class ChunkResult {
+        final PositionIndex index;
+        final List<String> diagnostics;
+
+        ChunkResult(final int maxPly) {
+            this.index = new PositionIndex(maxPly);
+            this.diagnostics = new ArrayList<>();
+        }
+    }
+
+    // reads the bytes of a mapped chunk without copying the chunk anywhere first
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
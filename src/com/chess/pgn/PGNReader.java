@@ -0,0 +1,398 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// reads the games of a PGN file one at a time, so a file of any size can be read with the memory of a single game
+// every line, the tags and the move text of a game are capped so a broken file cannot make that single game huge either
+// every game has its tag pairs parsed and its moves replayed on a Board from the standard position or from its FEN tag
+// a game that cannot be read "broken tags, an illegal or unknown move, a move text that never ends" is skipped
+// and reported to the diagnostics consumer, the reader then goes on with the next game
+public final class PGNReader implements Closeable {
+
+    // a game whose move text is longer than this is treated as broken, it protects the memory from a file without game breaks
+    public static final int MAX_MOVE_TEXT_LENGTH = 1 << 20;
+    // the same for a single line "a file without line breaks" and for the number of tags of a game
+    public static final int MAX_LINE_LENGTH = 1 << 16;
+    public static final int MAX_TAGS = 1 << 8;
+
+    private final Reader reader;
+    // our own buffer so a line can be cut off at MAX_LINE_LENGTH, BufferedReader.readLine reads a line of any length
+    private final char[] buffer;
+    private int bufferPosition;
+    private int bufferLimit;
+    private final StringBuilder line;
+    private boolean lineTooLong;
+    private final Consumer<String> diagnostics;
+    // the tags and the move text of the game being read, reused from one game to the next
+    private final Map<String, String> tags;
+    private final StringBuilder moveText;
+    // how deep the end of the move text is inside {...} comments, kept up to date as lines are added
+    private int commentDepth;
+    // what makes the game being read unreadable before its moves are even replayed, null if nothing
+    private String gameError;
+    // the first tag line of the next game, read while looking for the end of the current one
+    private String pendingLine;
+    private long lineNumber;
+    private long gameLineNumber;
+
+    private long gamesRead;
+    private long gamesSkipped;
+    private long movesRead;
+    private final long startTime;
+
+    public PGNReader(final InputStream inputStream) {
+        this(new InputStreamReader(inputStream, StandardCharsets.UTF_8), System.err::println);
+    }
+
+    public PGNReader(final Reader reader, final Consumer<String> diagnostics) {
+        this.reader = reader;
+        this.buffer = new char[1 << 16];
+        this.line = new StringBuilder();
+        this.diagnostics = diagnostics;
+        this.tags = new LinkedHashMap<>();
+        this.moveText = new StringBuilder();
+        this.startTime = System.nanoTime();
+    }
+
+    // bytes that are not valid UTF-8 are replaced instead of failing, old archives are often in Latin-1
+    public static PGNReader open(final Path path, final Consumer<String> diagnostics) throws IOException {
+        return new PGNReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), diagnostics);
+    }
+
+    // the next game that could be read and replayed or null once the end of the input is reached
+    public PGNGame nextGame() throws IOException {
+        while (readGameText()) {
+            if (this.gameError != null) {
+                skipGame(this.gameError);
+                continue;
+            }
+            try {
+                final PGNGame game = createGame(this.tags, this.moveText);
+                this.gamesRead++;
+                this.movesRead += game.getMoves().size();
+                return game;
+            } catch (final IllegalArgumentException e) {
+                skipGame(e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void skipGame(final String reason) {
+        this.gamesSkipped++;
+        this.diagnostics.accept("Skipping game at line " + this.gameLineNumber + ": " + reason);
+    }
+
+    public long getGamesRead() {
+        return this.gamesRead;
+    }
+
+    public long getGamesSkipped() {
+        return this.gamesSkipped;
+    }
+
+    public long getMovesRead() {
+        return this.movesRead;
+    }
+
+    // the games read and replayed per second since the reader was opened
+    public double getGamesPerSecond() {
+        final long elapsed = System.nanoTime() - this.startTime;
+        return elapsed == 0 ? 0 : this.gamesRead * 1_000_000_000.0 / elapsed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    @Override
+    public String toString() {
+        return "PGN [games = " + this.gamesRead + ", skipped = " + this.gamesSkipped + ", moves = " + this.movesRead +
+                ", games/s = " + String.format("%.1f", getGamesPerSecond()) + "]";
+    }
+
+    /* READING THE TEXT OF A GAME */
+
+    // fills the tags and the move text of the next game, a game ends where the tags of the next one start
+    // returns false once there is nothing left but blank lines
+    private boolean readGameText() throws IOException {
+        this.tags.clear();
+        this.moveText.setLength(0);
+        this.commentDepth = 0;
+        this.gameError = null;
+        boolean inGame = false;
+        boolean inMoveText = false;
+        String line;
+        while ((line = nextLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '%') {
+                // blank lines separate the sections and % starts an escaped line meant for other programs
+                continue;
+            }
+            if (!inGame) {
+                inGame = true;
+                this.gameLineNumber = this.lineNumber;
+            }
+            if (line.charAt(0) == '[' && this.commentDepth <= 0 && inMoveText) {
+                // the tags of the next game, the line is read again along with its length for that game
+                this.pendingLine = line;
+                break;
+            }
+            if (this.lineTooLong && this.gameError == null) {
+                this.gameError = "line " + this.lineNumber + " longer than " + MAX_LINE_LENGTH + " characters";
+            }
+            if (line.charAt(0) == '[' && this.commentDepth <= 0) {
+                if (this.gameError == null) {
+                    this.gameError = this.tags.size() < MAX_TAGS ? parseTag(line, this.tags) : "more than " + MAX_TAGS + " tags";
+                }
+                continue;
+            }
+            inMoveText = true;
+            if (this.lineTooLong) {
+                // the cut off line would only leave its comments unbalanced, the game is skipped anyway
+                continue;
+            }
+            if (this.moveText.length() + line.length() < MAX_MOVE_TEXT_LENGTH) {
+                this.moveText.append(line).append('\n');
+                updateCommentDepth(line);
+            } else if (this.gameError == null) {
+                // the rest of the move text is still read so the next game starts at the right line
+                this.gameError = "move text longer than " + MAX_MOVE_TEXT_LENGTH + " characters";
+            }
+        }
+        return inGame;
+    }
+
+    private String nextLine() throws IOException {
+        if (this.pendingLine != null) {
+            final String line = this.pendingLine;
+            this.pendingLine = null;
+            return line;
+        }
+        if (!readLine()) {
+            return null;
+        }
+        this.lineNumber++;
+        return this.line.toString().trim();
+    }
+
+    // reads the next line into the line builder without its line break, "\n", "\r\n" and "\r" all end a line
+    // only the first MAX_LINE_LENGTH characters are kept, the rest of the line is read and dropped
+    // returns false at the end of the input
+    private boolean readLine() throws IOException {
+        this.line.setLength(0);
+        this.lineTooLong = false;
+        boolean readAnything = false;
+        while (true) {
+            if (this.bufferPosition == this.bufferLimit) {
+                final int read = this.reader.read(this.buffer, 0, this.buffer.length);
+                if (read <= 0) {
+                    return readAnything;
+                }
+                this.bufferPosition = 0;
+                this.bufferLimit = read;
+            }
+            readAnything = true;
+            final char c = this.buffer[this.bufferPosition++];
+            if (c == '\n') {
+                return true;
+            }
+            if (c == '\r') {
+                // a \r\n counts as one line break
+                if (this.bufferPosition == this.bufferLimit) {
+                    final int read = this.reader.read(this.buffer, 0, this.buffer.length);
+                    this.bufferPosition = 0;
+                    this.bufferLimit = Math.max(read, 0);
+                }
+                if (this.bufferPosition < this.bufferLimit && this.buffer[this.bufferPosition] == '\n') {
+                    this.bufferPosition++;
+                }
+                return true;
+            }
+            if (this.line.length() < MAX_LINE_LENGTH) {
+                this.line.append(c);
+            } else {
+                this.lineTooLong = true;
+            }
+        }
+    }
+
+    // a line starting with [ inside an unclosed {...} comment belongs to the comment and not to the next game
+    // so the depth is followed line by line as the move text grows instead of rescanning the whole text for every [
+    private void updateCommentDepth(final String line) {
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '{') {
+                this.commentDepth++;
+            } else if (c == '}') {
+                this.commentDepth--;
+            }
+        }
+    }
+
+    // a tag pair is [Name "Value"] with \" and \\ escaped inside the value
+    // returns what is wrong with the line or null if the tag was added
+    static String parseTag(final String line, final Map<String, String> tags) {
+        int index = 1;
+        final int length = line.length();
+        final int nameStart = index;
+        while (index < length && isTagNameChar(line.charAt(index))) {
+            index++;
+        }
+        final int nameEnd = index;
+        while (index < length && line.charAt(index) == ' ') {
+            index++;
+        }
+        if (nameEnd == nameStart || index >= length || line.charAt(index) != '"') {
+            return "invalid tag " + line;
+        }
+        index++;
+        final StringBuilder value = new StringBuilder();
+        while (index < length && line.charAt(index) != '"') {
+            char c = line.charAt(index);
+            if (c == '\\' && index + 1 < length) {
+                c = line.charAt(++index);
+            }
+            value.append(c);
+            index++;
+        }
+        if (index >= length || line.indexOf(']', index) < 0) {
+            return "unterminated tag " + line;
+        }
+        tags.put(line.substring(nameStart, nameEnd), value.toString());
+        return null;
+    }
+
+    private static boolean isTagNameChar(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /* REPLAYING THE MOVES */
+
+    // replays the move text of a game from its start position
+    // throws IllegalArgumentException if the text cannot be parsed or a move is not legal on the board it is played on
+    static PGNGame createGame(final Map<String, String> tags, final CharSequence moveText) {
+        final String fen = tags.get("FEN");
+        final Board startBoard = fen != null ? FenUtilities.createGameFromFEN(fen) : Board.createStandardBoard();
+        final ImmutableList.Builder<Move> moves = ImmutableList.builder();
+        Board board = startBoard;
+        String result = null;
+        final int length = moveText.length();
+        int index = 0;
+        while (index < length) {
+            final char c = moveText.charAt(index);
+            if (Character.isWhitespace(c)) {
+                index++;
+            } else if (c == '{') {
+                // a comment, it runs up to the closing brace
+                index = skipPast(moveText, index, '}');
+            } else if (c == ';') {
+                // a comment up to the end of the line
+                index = skipPast(moveText, index, '\n');
+            } else if (c == '(') {
+                index = skipVariation(moveText, index);
+            } else if (c == '}' || c == ')') {
+                throw new IllegalArgumentException("unbalanced " + c);
+            } else if (c == '$') {
+                // a numeric annotation glyph "$1 for a good move"
+                index++;
+                while (index < length && Character.isDigit(moveText.charAt(index))) {
+                    index++;
+                }
+            } else {
+                final int start = index;
+                while (index < length && !isTokenEnd(moveText.charAt(index))) {
+                    index++;
+                }
+                final String token = moveText.subSequence(start, index).toString();
+                if (isResult(token)) {
+                    result = token;
+                    break;
+                }
+                final String san = stripMoveNumber(token);
+                if (!san.isEmpty()) {
+                    final Move move = AlgebraicNotation.createMoveFromSAN(board, san);
+                    moves.add(move);
+                    board = move.execute();
+                }
+            }
+        }
+        if (result == null) {
+            // the result is the game termination marker of the move text, the Result tag is only a fallback
+            result = tags.containsKey("Result") ? tags.get("Result") : "*";
+        }
+        return new PGNGame(tags, moves.build(), startBoard, board, result);
+    }
+
+    // "12." "12..." or a number glued to its move "12.e4"
+    private static String stripMoveNumber(final String token) {
+        int index = 0;
+        while (index < token.length() && Character.isDigit(token.charAt(index))) {
+            index++;
+        }
+        if (index == 0 || index == token.length() || token.charAt(index) != '.') {
+            return token;
+        }
+        while (index < token.length() && token.charAt(index) == '.') {
+            index++;
+        }
+        return token.substring(index);
+    }
+
+    private static boolean isResult(final String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    private static boolean isTokenEnd(final char c) {
+        return Character.isWhitespace(c) || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '$';
+    }
+
+    private static int skipPast(final CharSequence moveText, final int index, final char end) {
+        for (int i = index + 1; i < moveText.length(); i++) {
+            if (moveText.charAt(i) == end) {
+                return i + 1;
+            }
+        }
+        if (end == '\n') {
+            return moveText.length();
+        }
+        throw new IllegalArgumentException("unterminated comment");
+    }
+
+    // a variation in parentheses, they can be nested and hold comments with parentheses in them
+    private static int skipVariation(final CharSequence moveText, int index) {
+        int depth = 0;
+        while (index < moveText.length()) {
+            final char c = moveText.charAt(index);
+            if (c == '{') {
+                index = skipPast(moveText, index, '}');
+                continue;
+            }
+            if (c == ';') {
+                index = skipPast(moveText, index, '\n');
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return index + 1;
+            }
+            index++;
+        }
+        throw new IllegalArgumentException("unterminated variation");
+    }
+}
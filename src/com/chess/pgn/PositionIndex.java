@@ -0,0 +1,152 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// opening statistics of a set of games: for every position reached in their first plies
+// how many games went through it and how those games ended
+// positions are keyed by the zobrist key of the board so a position reached through different move orders is counted once
+public final class PositionIndex {
+
+    private final int maxPly;
+    private final Map<Long, PositionStats> positions;
+    private long games;
+    private long skippedGames;
+
+    public PositionIndex(final int maxPly) {
+        this.maxPly = maxPly;
+        this.positions = new HashMap<>();
+    }
+
+    // counts the start position and the positions after each of the first maxPly moves of the game
+    // a position the game repeats is only counted the first time, the stats count games and not visits
+    public void addGame(final PGNGame game) {
+        final int outcome = outcomeOf(game.getResult());
+        final int plies = Math.min(game.getMoves().size(), this.maxPly);
+        final Set<Long> seenPositions = new HashSet<>();
+        for (int ply = 0; ply < plies; ply++) {
+            addPosition(game.getMoves().get(ply).getBoard(), outcome, seenPositions);
+        }
+        final Board lastBoard = plies == game.getMoves().size() ? game.getFinalBoard() : game.getMoves().get(plies).getBoard();
+        addPosition(lastBoard, outcome, seenPositions);
+        this.games++;
+    }
+
+    void addSkippedGames(final long skippedGames) {
+        this.skippedGames += skippedGames;
+    }
+
+    // adds the games of another index "one built from another part of the same file" to this one
+    public void merge(final PositionIndex other) {
+        for (final Map.Entry<Long, PositionStats> entry : other.positions.entrySet()) {
+            this.positions.computeIfAbsent(entry.getKey(), key -> new PositionStats()).add(entry.getValue());
+        }
+        this.games += other.games;
+        this.skippedGames += other.skippedGames;
+    }
+
+    // the statistics of a position or null if no game reached it
+    public PositionStats getStats(final Board board) {
+        return this.positions.get(board.getZobristHash());
+    }
+
+    public Map<Long, PositionStats> getPositions() {
+        return Collections.unmodifiableMap(this.positions);
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public long getSkippedGames() {
+        return this.skippedGames;
+    }
+
+    public int getMaxPly() {
+        return this.maxPly;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionIndex [games = " + this.games + ", skipped = " + this.skippedGames +
+                ", positions = " + this.positions.size() + ", max ply = " + this.maxPly + "]";
+    }
+
+    private void addPosition(final Board board, final int outcome, final Set<Long> seenPositions) {
+        if (seenPositions.add(board.getZobristHash())) {
+            this.positions.computeIfAbsent(board.getZobristHash(), key -> new PositionStats()).addGame(outcome);
+        }
+    }
+
+    private static int outcomeOf(final String result) {
+        switch (result) {
+            case "1-0":
+                return PositionStats.WHITE_WIN;
+            case "0-1":
+                return PositionStats.BLACK_WIN;
+            case "1/2-1/2":
+                return PositionStats.DRAW;
+            default:
+                return PositionStats.UNKNOWN;
+        }
+    }
+
+    // how the games going through one position ended
+    public static final class PositionStats {
+
+        static final int WHITE_WIN = 0;
+        static final int DRAW = 1;
+        static final int BLACK_WIN = 2;
+        static final int UNKNOWN = 3;
+
+        private final long[] outcomes = new long[4];
+
+        private void addGame(final int outcome) {
+            this.outcomes[outcome]++;
+        }
+
+        private void add(final PositionStats other) {
+            for (int i = 0; i < this.outcomes.length; i++) {
+                this.outcomes[i] += other.outcomes[i];
+            }
+        }
+
+        public long getGames() {
+            return this.outcomes[WHITE_WIN] + this.outcomes[DRAW] + this.outcomes[BLACK_WIN] + this.outcomes[UNKNOWN];
+        }
+
+        public long getWhiteWins() {
+            return this.outcomes[WHITE_WIN];
+        }
+
+        public long getDraws() {
+            return this.outcomes[DRAW];
+        }
+
+        public long getBlackWins() {
+            return this.outcomes[BLACK_WIN];
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other || other instanceof PositionStats &&
+                    Arrays.equals(this.outcomes, ((PositionStats) other).outcomes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.outcomes);
+        }
+
+        @Override
+        public String toString() {
+            return "+" + getWhiteWins() + " =" + getDraws() + " -" + getBlackWins() + " (" + getGames() + " games)";
+        }
+    }
+}
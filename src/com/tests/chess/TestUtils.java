@@ -0,0 +1,51 @@
+package com.tests.chess;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.MoveTransition;
+
+import static org.junit.Assert.assertTrue;
+
+// the helpers the board, search and notation tests all use
+public final class TestUtils {
+
+    private TestUtils() {
+        throw new RuntimeException("Not instantiable! ");
+    }
+
+    // plays the move between two tiles "e2", "e4" and fails the test if it is not legal
+    public static Board play(final Board board, final String from, final String to) {
+        final MoveTransition transition = board.currentPlayer().makeMove(Move.MoveFactory.createMove(board,
+                BoardUtils.getCoordinateAtPosition(from), BoardUtils.getCoordinateAtPosition(to)));
+        assertTrue(transition.getMoveStatus().isDone());
+        return transition.getTransitionBoard();
+    }
+
+    // the number of move sequences of the given length, counted on the immutable boards
+    public static long perft(final Board board, final int depth) {
+        long nodes = 0;
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodes += depth == 1 ? 1 : perft(transition.getTransitionBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    // the same count made and unmade on a single search board
+    public static long perft(final SearchBoard board, final int depth) {
+        final int[] moves = new int[SearchBoard.MAX_MOVES];
+        final int numMoves = board.generateMoves(moves);
+        long nodes = 0;
+        for (int i = 0; i < numMoves; i++) {
+            if (board.makeMove(moves[i])) {
+                nodes += depth == 1 ? 1 : perft(board, depth - 1);
+                board.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+}
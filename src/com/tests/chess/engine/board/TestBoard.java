@@ -6,14 +6,22 @@ import com.chess.engine.board.*;
 import com.chess.engine.board.Board.Builder;
 import com.chess.engine.board.Move.MoveFactory;
 import com.chess.engine.piece.*;
+import com.chess.engine.player.MoveStatus;
 import com.chess.engine.player.MoveTransition;
 import com.chess.engine.player.ai.BoardEvaluator;
 import com.chess.engine.player.ai.MiniMax;
 import com.chess.engine.player.ai.MoveStrategy;
 import com.chess.engine.player.ai.StandardBoardEvaluator;
+import com.chess.pgn.FenUtilities;
 import com.google.common.collect.Iterables;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.tests.chess.TestUtils.perft;
+import static com.tests.chess.TestUtils.play;
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -62,11 +70,11 @@ public class TestBoard {
 //
 //        final Builder builder = new Builder();
 //        // Black Layout
-//        builder.setPiece(new King(Alliance.BLACK, 4, false, false));
-//        builder.setPiece(new Pawn(Alliance.BLACK, 12));
+//        builder.setPiece(King.createKing(Alliance.BLACK, 4, false, false));
+//        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 12));
 //        // White Layout
-//        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-//        builder.setPiece(new King(Alliance.WHITE, 60, false, false));
+//        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 52));
+//        builder.setPiece(King.createKing(Alliance.WHITE, 60, false, false));
 //        builder.setMoveMaker(Alliance.WHITE);
 //        // Set the current player
 //        final Board board = builder.build();
@@ -177,37 +185,37 @@ public class TestBoard {
 
         final Builder builder = new Builder();
         // Black Layout
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        builder.setPiece(new Pawn(Alliance.BLACK, 8));
-        builder.setPiece(new Pawn(Alliance.BLACK, 9));
-        builder.setPiece(new Pawn(Alliance.BLACK, 10));
-        builder.setPiece(new Pawn(Alliance.BLACK, 11));
-        builder.setPiece(new Pawn(Alliance.BLACK, 12));
-        builder.setPiece(new Pawn(Alliance.BLACK, 13));
-        builder.setPiece(new Pawn(Alliance.BLACK, 14));
-        builder.setPiece(new Pawn(Alliance.BLACK, 15));
+        builder.setPiece(Rook.createRook(Alliance.BLACK, 0));
+        builder.setPiece(Knight.createKnight(Alliance.BLACK, 1));
+        builder.setPiece(Bishop.createBishop(Alliance.BLACK, 2));
+        builder.setPiece(Queen.createQueen(Alliance.BLACK, 3));
+        builder.setPiece(Bishop.createBishop(Alliance.BLACK, 5));
+        builder.setPiece(Knight.createKnight(Alliance.BLACK, 6));
+        builder.setPiece(Rook.createRook(Alliance.BLACK, 7));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 8));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 9));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 10));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 11));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 12));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 13));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 14));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 15));
         // White Layout
-        builder.setPiece(new Pawn(Alliance.WHITE, 48));
-        builder.setPiece(new Pawn(Alliance.WHITE, 49));
-        builder.setPiece(new Pawn(Alliance.WHITE, 50));
-        builder.setPiece(new Pawn(Alliance.WHITE, 51));
-        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-        builder.setPiece(new Pawn(Alliance.WHITE, 53));
-        builder.setPiece(new Pawn(Alliance.WHITE, 54));
-        builder.setPiece(new Pawn(Alliance.WHITE, 55));
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 48));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 49));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 50));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 51));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 52));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 53));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 54));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 55));
+        builder.setPiece(Rook.createRook(Alliance.WHITE, 56));
+        builder.setPiece(Knight.createKnight(Alliance.WHITE, 57));
+        builder.setPiece(Bishop.createBishop(Alliance.WHITE, 58));
+        builder.setPiece(Queen.createQueen(Alliance.WHITE, 59));
+        builder.setPiece(Bishop.createBishop(Alliance.WHITE, 61));
+        builder.setPiece(Knight.createKnight(Alliance.WHITE, 62));
+        builder.setPiece(Rook.createRook(Alliance.WHITE, 63));
         //white to move
         builder.setMoveMaker(Alliance.WHITE);
         //build the board
@@ -226,6 +234,345 @@ public class TestBoard {
 //        assertEquals(BoardUtils.INSTANCE.getPositionAtCoordinate(7), "h8");
 //    }
 
+    @Test
+    public void testStandardBitBoard() {
+        final Board board = Board.createStandardBoard();
+        final BitBoard bitBoard = board.getBitBoard();
+        assertEquals(Long.bitCount(bitBoard.getOccupancy()), 32);
+        assertEquals(bitBoard.getOccupancy(Alliance.BLACK), 0xFFFFL);
+        assertEquals(bitBoard.getOccupancy(Alliance.WHITE), 0xFFFFL << 48);
+        assertEquals(bitBoard.count(Piece.PieceType.PAWN, Alliance.WHITE), 8);
+        assertEquals(bitBoard.getPieces(Piece.PieceType.KING, Alliance.WHITE), BitBoard.tileMask(60));
+        assertEquals(bitBoard.getPieces(Piece.PieceType.QUEEN, Alliance.BLACK), BitBoard.tileMask(3));
+        for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            assertEquals(bitBoard.isTileOccupied(i), board.getTile(i).isTileOccupied());
+        }
+    }
+
+    @Test
+    public void testSearchBoardPerft() {
+        final SearchBoard board = new SearchBoard(Board.createStandardBoard());
+        assertEquals(perft(board, 1), 20);
+        assertEquals(perft(board, 2), 400);
+        assertEquals(perft(board, 3), 8902);
+        assertEquals(perft(board, 4), 197281);
+        assertEquals(board.getPly(), 0);
+    }
+
+    @Test
+    public void testSearchBoardMakeUnmake() {
+        final Board board = Board.createStandardBoard();
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final String before = searchBoard.toString();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            assertTrue(searchBoard.makeMove(searchBoard.toSearchMove(move)));
+            assertEquals(searchBoard.toBoard().toString(), move.execute().toString());
+            assertEquals(searchBoard.countMoves(searchBoard.getSideToMove()),
+                    searchBoard.generateMoves(new int[SearchBoard.MAX_MOVES]));
+            searchBoard.unmakeMove();
+            assertEquals(searchBoard.toString(), before);
+        }
+    }
+
+    @Test
+    public void testZobristTransposition() {
+        final Board board = Board.createStandardBoard();
+        final Board b1 = play(board, "g1", "f3");
+        final Board b2 = play(b1, "g8", "f6");
+        final Board b3 = play(b2, "f3", "g1");
+        final Board b4 = play(b3, "f6", "g8");
+        assertEquals(board.getZobristHash(), b4.getZobristHash());
+        assertFalse(board.getZobristHash() == b1.getZobristHash());
+        assertFalse(b1.getZobristHash() == b3.getZobristHash());
+    }
+
+    // walks a game picking moves by a fixed pattern and checks that the key built up move by move
+    // matches the key calculated from scratch, and that the SearchBoard ends up with the same key
+    @Test
+    public void testZobristIncremental() {
+        Board board = Board.createStandardBoard();
+        for (int ply = 0; ply < 200; ply++) {
+            assertEquals(Zobrist.calculateHash(board), board.getZobristHash());
+            final SearchBoard searchBoard = new SearchBoard(board);
+            assertEquals(board.getZobristHash(), searchBoard.getZobristHash());
+            final List<Move> legalMoves = new ArrayList<>();
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                if (board.currentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                    legalMoves.add(move);
+                }
+            }
+            if (legalMoves.isEmpty()) {
+                break;
+            }
+            final Move move = legalMoves.get((ply * 7 + 3) % legalMoves.size());
+            final Board nextBoard = board.currentPlayer().makeMove(move).getTransitionBoard();
+            assertTrue(searchBoard.makeMove(searchBoard.toSearchMove(move)));
+            assertEquals(nextBoard.getZobristHash(), searchBoard.getZobristHash());
+            searchBoard.unmakeMove();
+            assertEquals(board.getZobristHash(), searchBoard.getZobristHash());
+            board = nextBoard;
+        }
+    }
+
+    @Test
+    public void testAttackTables() {
+        // a knight in a corner, on an edge and in the middle
+        assertEquals(2, Long.bitCount(AttackTables.knightAttacks(0)));
+        assertEquals(4, Long.bitCount(AttackTables.knightAttacks(BoardUtils.getCoordinateAtPosition("a4"))));
+        assertEquals(8, Long.bitCount(AttackTables.knightAttacks(BoardUtils.getCoordinateAtPosition("d4"))));
+        assertEquals(3, Long.bitCount(AttackTables.kingAttacks(63)));
+        assertEquals(8, Long.bitCount(AttackTables.kingAttacks(BoardUtils.getCoordinateAtPosition("e5"))));
+        // a white pawn on the h column only attacks the g column
+        assertEquals(BitBoard.tileMask(BoardUtils.getCoordinateAtPosition("g3")),
+                AttackTables.pawnAttacks(BoardUtils.getCoordinateAtPosition("h2"), Alliance.WHITE));
+        // the Board move generation that uses the tables still walks the same tree as the search board
+        assertEquals(8902, perft(Board.createStandardBoard(), 3));
+    }
+
+    @Test
+    public void testMagicAttacks() {
+        // the magic lookups have to agree with walking the rays for every tile and any pieces in the way
+        final Random random = new Random(42);
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            for (int i = 0; i < 1000; i++) {
+                // sparse and dense boards, the piece on the tile itself must not matter
+                final long occupancy = i % 2 == 0 ? random.nextLong() & random.nextLong() : random.nextLong();
+                final long rookAttacks = slidingAttacks(tile, occupancy, new int[]{-8, -1, 1, 8});
+                final long bishopAttacks = slidingAttacks(tile, occupancy, new int[]{-9, -7, 7, 9});
+                assertEquals(rookAttacks, AttackTables.rookAttacks(tile, occupancy));
+                assertEquals(bishopAttacks, AttackTables.bishopAttacks(tile, occupancy));
+                assertEquals(rookAttacks | bishopAttacks, AttackTables.queenAttacks(tile, occupancy));
+            }
+            assertEquals(14, Long.bitCount(AttackTables.rookAttacks(tile, BitBoard.EMPTY)));
+        }
+        // the Board sliders now come from the same tables, after 1.e4 d5 2.Bc4 Qd6 the bishops and queens have open lines
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        board = play(board, "f1", "c4");
+        board = play(board, "d8", "d6");
+        assertEquals(perft(new SearchBoard(board), 3), perft(board, 3));
+    }
+
+    // the ray walker above and both move generators are built on the same idea as the tables
+    // so these sets are written out by hand and the perft counts are the published ones
+    @Test
+    public void testKnownAttacksAndPerft() {
+        // a rook on d4 stopped by the pieces on d6, f4 and d2 and running to the edge on the left
+        assertEquals(tiles("d5", "d6", "d3", "d2", "c4", "b4", "a4", "e4", "f4"),
+                AttackTables.rookAttacks(BoardUtils.getCoordinateAtPosition("d4"), tiles("d4", "d6", "f4", "d2", "d1", "g4")));
+        // the bishop on c1 of the start position only sees its two pawns
+        assertEquals(tiles("b2", "d2"), AttackTables.bishopAttacks(BoardUtils.getCoordinateAtPosition("c1"),
+                Board.createStandardBoard().getBitBoard().getOccupancy()));
+        // a bishop on e4 blocked on g6 and b1
+        assertEquals(tiles("f5", "g6", "d5", "c6", "b7", "a8", "f3", "g2", "h1", "d3", "c2", "b1"),
+                AttackTables.bishopAttacks(BoardUtils.getCoordinateAtPosition("e4"), tiles("g6", "b1", "h7")));
+        // a queen in the corner of an empty board
+        assertEquals(21, Long.bitCount(AttackTables.queenAttacks(0, BitBoard.EMPTY)));
+        assertEquals(tiles("g8", "h7", "g7"), AttackTables.queenAttacks(BoardUtils.getCoordinateAtPosition("h8"),
+                tiles("g8", "h7", "g7")));
+
+        final Board kiwipete = FenUtilities.createGameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        assertEquals(48, perft(kiwipete, 1));
+        assertEquals(2039, perft(kiwipete, 2));
+        assertEquals(97862, perft(kiwipete, 3));
+        final Board endgame = FenUtilities.createGameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -");
+        assertEquals(14, perft(endgame, 1));
+        assertEquals(191, perft(endgame, 2));
+        assertEquals(2812, perft(endgame, 3));
+        assertEquals(43238, perft(new SearchBoard(endgame), 4));
+    }
+
+    private static long tiles(final String... positions) {
+        long mask = BitBoard.EMPTY;
+        for (final String position : positions) {
+            mask |= BitBoard.tileMask(BoardUtils.getCoordinateAtPosition(position));
+        }
+        return mask;
+    }
+
+    // the reference the magic tables are checked against
+    private static long slidingAttacks(final int tile, final long occupancy, final int[] directions) {
+        long attacks = 0L;
+        for (final int direction : directions) {
+            int current = tile;
+            while (BoardUtils.isValidTileCoordinate(current + direction) &&
+                    Math.abs((current + direction) % 8 - current % 8) <= 1) {
+                current += direction;
+                attacks |= BitBoard.tileMask(current);
+                if ((occupancy & BitBoard.tileMask(current)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    public void testLegalMovesWithPinsAndChecks() {
+        // the white rook is pinned on the e file and can only move along it
+        final Builder pinBuilder = new Builder();
+        pinBuilder.setPiece(King.createKing(Alliance.BLACK, 0, false, false));
+        pinBuilder.setPiece(Rook.createRook(Alliance.BLACK, 4));
+        pinBuilder.setPiece(Rook.createRook(Alliance.WHITE, 52));
+        pinBuilder.setPiece(King.createKing(Alliance.WHITE, 60, false, false));
+        pinBuilder.setMoveMaker(Alliance.WHITE);
+        final Board pinBoard = pinBuilder.build();
+        assertEquals(10, pinBoard.currentPlayer().getLegalMoves().size());
+        for (final Move move : pinBoard.currentPlayer().getLegalMoves()) {
+            if (move.getMovedPiece().getPieceType().isRook()) {
+                assertEquals(4, move.getDestinationCoordinate() % BoardUtils.NUM_TILES_PER_ROW);
+            }
+        }
+        // taking en passant would take both pawns off the fifth rank and open it for the black rook
+        final Builder enPassantBuilder = new Builder();
+        enPassantBuilder.setPiece(King.createKing(Alliance.BLACK, 7, false, false));
+        enPassantBuilder.setPiece(Pawn.createPawn(Alliance.BLACK, 10));
+        enPassantBuilder.setPiece(Rook.createRook(Alliance.BLACK, 31));
+        enPassantBuilder.setPiece(King.createKing(Alliance.WHITE, 24, false, false));
+        enPassantBuilder.setPiece(Pawn.createPawn(Alliance.WHITE, 25));
+        enPassantBuilder.setMoveMaker(Alliance.BLACK);
+        final Board enPassantBoard = play(enPassantBuilder.build(), "c7", "c5");
+        assertEquals(4, enPassantBoard.currentPlayer().getLegalMoves().size());
+        assertEquals(MoveStatus.ILLEGAL_MOVE, enPassantBoard.currentPlayer().makeMove(MoveFactory.createMove(enPassantBoard,
+                BoardUtils.getCoordinateAtPosition("b5"), BoardUtils.getCoordinateAtPosition("c6"))).getMoveStatus());
+        // every legal move is one the search board also finds legal
+        for (final Board board : new Board[]{pinBoard, enPassantBoard}) {
+            final SearchBoard searchBoard = new SearchBoard(board);
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                assertTrue(searchBoard.makeMove(searchBoard.toSearchMove(move)));
+                searchBoard.unmakeMove();
+            }
+            assertEquals(perft(searchBoard, 1), board.currentPlayer().getLegalMoves().size());
+        }
+    }
+
+    @Test
+    public void testSquareAttacked() {
+        final Board board = Board.createStandardBoard();
+        // pawns attack the empty tiles diagonally in front of them even though they have no capture there
+        assertTrue(board.isSquareAttacked(BoardUtils.getCoordinateAtPosition("e3"), Alliance.WHITE));
+        assertTrue(board.isSquareAttacked(BoardUtils.getCoordinateAtPosition("f6"), Alliance.BLACK));
+        assertFalse(board.isSquareAttacked(BoardUtils.getCoordinateAtPosition("e4"), Alliance.WHITE));
+        assertFalse(board.isSquareAttacked(BoardUtils.getCoordinateAtPosition("e5"), Alliance.BLACK));
+        // the queen on h5 sees f7 but not e8 behind it
+        Board afterMoves = play(board, "e2", "e4");
+        afterMoves = play(afterMoves, "e7", "e5");
+        afterMoves = play(afterMoves, "d1", "h5");
+        assertTrue(afterMoves.isSquareAttacked(BoardUtils.getCoordinateAtPosition("f7"), Alliance.WHITE));
+        assertFalse(afterMoves.isSquareAttacked(BoardUtils.getCoordinateAtPosition("e8"), Alliance.WHITE));
+        assertFalse(afterMoves.currentPlayer().isInCheck());
+    }
+
+    @Test
+    public void testCheckmateAndStalemate() {
+        // fool's mate
+        Board mateBoard = Board.createStandardBoard();
+        mateBoard = play(mateBoard, "f2", "f3");
+        mateBoard = play(mateBoard, "e7", "e5");
+        mateBoard = play(mateBoard, "g2", "g4");
+        mateBoard = play(mateBoard, "d8", "h4");
+        assertTrue(mateBoard.currentPlayer().isInCheckMate());
+        assertFalse(mateBoard.currentPlayer().isInStaleMate());
+        // the black king has no move but is not in check
+        final Builder builder = new Builder();
+        builder.setPiece(King.createKing(Alliance.BLACK, 0, false, false));
+        builder.setPiece(Queen.createQueen(Alliance.WHITE, 10));
+        builder.setPiece(King.createKing(Alliance.WHITE, 60, false, false));
+        builder.setMoveMaker(Alliance.BLACK);
+        final Board staleBoard = builder.build();
+        assertTrue(staleBoard.currentPlayer().isInStaleMate());
+        assertFalse(staleBoard.currentPlayer().isInCheckMate());
+        // the search board remembers the answer per ply, it has to stay right after searching below the position
+        final SearchBoard searchBoard = new SearchBoard(mateBoard);
+        assertTrue(searchBoard.isInCheckMate());
+        final SearchBoard standardBoard = new SearchBoard(Board.createStandardBoard());
+        assertFalse(standardBoard.isEndGame());
+        assertEquals(8902, perft(standardBoard, 3));
+        assertFalse(standardBoard.isEndGame());
+        assertTrue(new SearchBoard(staleBoard).isInStaleMate());
+    }
+
+    @Test
+    public void testMoveEncoding() {
+        final Builder builder = new Builder();
+        builder.setPiece(Rook.createRook(Alliance.BLACK, 0));
+        builder.setPiece(King.createKing(Alliance.BLACK, 7, false, false));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 9));
+        builder.setPiece(King.createKing(Alliance.WHITE, 60, false, false));
+        builder.setMoveMaker(Alliance.WHITE);
+        // every move goes to an int and back to the same move
+        for (final Board board : new Board[]{Board.createStandardBoard(), builder.build()}) {
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                final int encodedMove = SearchBoard.encode(move);
+                assertTrue(encodedMove >>> 16 == 0);
+                assertEquals(move, MoveFactory.createMove(board, encodedMove));
+            }
+        }
+        // the promotion piece is part of the move
+        final int takeRook = SearchBoard.encodePromotion(9, 0, true, Piece.PieceType.QUEEN);
+        assertEquals(SearchBoard.encode(9, 0, SearchBoard.PROMOTION_CAPTURE), takeRook);
+        final int underPromotion = SearchBoard.encodePromotion(9, 1, false, Piece.PieceType.KNIGHT);
+        assertTrue(SearchBoard.isPromotion(underPromotion));
+        assertFalse(SearchBoard.isAttack(underPromotion));
+        assertEquals(Piece.PieceType.KNIGHT, SearchBoard.getPromotionPieceType(underPromotion));
+        final SearchBoard searchBoard = new SearchBoard(builder.build());
+        assertTrue(searchBoard.makeMove(underPromotion));
+        assertEquals(BitBoard.tileMask(1), searchBoard.getPieces(Piece.PieceType.KNIGHT, Alliance.WHITE));
+        searchBoard.unmakeMove();
+        assertEquals(BitBoard.tileMask(9), searchBoard.getPieces(Piece.PieceType.PAWN, Alliance.WHITE));
+        assertEquals(MoveFactory.createMove(builder.build(), 9, 0), MoveFactory.createMove(builder.build(), takeRook));
+    }
+
+    // a builder copied from a board gives back the same position and only the tiles set or cleared on it change
+    @Test
+    public void testBuilderCopy() {
+        final Board board = Board.createStandardBoard();
+        final Board copy = new Builder(board).build();
+        assertEquals(board.toString(), copy.toString());
+        assertEquals(board.getZobristHash(), copy.getZobristHash());
+        assertEquals(board.currentPlayer().getAlliance(), copy.currentPlayer().getAlliance());
+
+        final int e2 = BoardUtils.getCoordinateAtPosition("e2");
+        final int e3 = BoardUtils.getCoordinateAtPosition("e3");
+        final Board delta = new Builder(board)
+                .clearTile(e2)
+                .setPiece(Pawn.createPawn(Alliance.WHITE, e3))
+                .setMoveMaker(Alliance.BLACK)
+                .build();
+        final Board played = board.currentPlayer().makeMove(MoveFactory.createMove(board, e2, e3)).getTransitionBoard();
+        assertEquals(played.toString(), delta.toString());
+        assertEquals(played.getZobristHash(), delta.getZobristHash());
+        assertFalse(delta.getTile(e2).isTileOccupied());
+        assertEquals(16, delta.getWhitePieces().size());
+    }
+
+    // pieces are shared instances so the same piece on the same tile is always the same object
+    // and a rook that went away and came back has lost its castling right
+    @Test
+    public void testInternedPieces() {
+        assertTrue(Pawn.createPawn(Alliance.WHITE, 52) == Pawn.createPawn(Alliance.WHITE, 52, true));
+        assertFalse(Rook.createRook(Alliance.WHITE, 63) == Rook.createRook(Alliance.WHITE, 63, false));
+
+        Board board = Board.createStandardBoard();
+        final Piece knight = board.getTile(BoardUtils.getCoordinateAtPosition("g1")).getPiece();
+        final Move knightMove = MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("g1"),
+                BoardUtils.getCoordinateAtPosition("f3"));
+        assertTrue(knightMove.execute().getTile(BoardUtils.getCoordinateAtPosition("f3")).getPiece() ==
+                knight.movePiece(knightMove));
+
+        for (final String[] move : new String[][]{{"g1", "f3"}, {"g8", "f6"}, {"g2", "g3"}, {"g7", "g6"},
+                {"f1", "g2"}, {"f8", "g7"}, {"h1", "g1"}, {"h8", "g8"}, {"g1", "h1"}, {"g8", "h8"}}) {
+            board = board.currentPlayer().makeMove(MoveFactory.createMove(board,
+                    BoardUtils.getCoordinateAtPosition(move[0]), BoardUtils.getCoordinateAtPosition(move[1]))).getTransitionBoard();
+        }
+        assertFalse(board.getTile(BoardUtils.getCoordinateAtPosition("h1")).getPiece().isFirstMove());
+        assertEquals(0, board.getCastlingRights() & (BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.BLACK_KING_SIDE_CASTLE));
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            assertFalse(move.isCastlingMove());
+        }
+    }
+
     @Test
     public void mem() {
         final Runtime runtime = Runtime.getRuntime();
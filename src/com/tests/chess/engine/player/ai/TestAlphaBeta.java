@@ -0,0 +1,284 @@
+package com.tests.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Board.Builder;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.piece.King;
+import com.chess.engine.piece.Knight;
+import com.chess.engine.piece.Pawn;
+import com.chess.engine.piece.Queen;
+import com.chess.engine.piece.Rook;
+import com.chess.engine.player.ai.AlphaBeta;
+import com.chess.engine.player.ai.IterativeDeepening;
+import com.chess.engine.player.ai.LazySMP;
+import com.chess.engine.player.ai.MiniMax;
+import com.chess.engine.player.ai.MoveOrdering;
+import com.chess.engine.player.ai.StandardBoardEvaluator;
+import com.chess.engine.player.ai.TranspositionTable;
+import com.sun.management.ThreadMXBean;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.tests.chess.TestUtils.play;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAlphaBeta {
+
+    @Test
+    public void testSameMoveAsMiniMax() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        board = play(board, "g1", "f3");
+        for (int depth = 1; depth <= 3; depth++) {
+            final MiniMax miniMax = new MiniMax(new StandardBoardEvaluator(), depth);
+            final AlphaBeta alphaBeta = new AlphaBeta(new StandardBoardEvaluator(), depth);
+            assertEquals(alphaBeta.execute(board), miniMax.execute(board));
+            assertTrue(alphaBeta.getNodesSearched() <= miniMax.getNodesSearched());
+        }
+        board = play(board, "d5", "e4");
+        final MiniMax miniMax = new MiniMax(3);
+        final AlphaBeta alphaBeta = new AlphaBeta(3);
+        assertEquals(alphaBeta.execute(board), miniMax.execute(board));
+        assertTrue(alphaBeta.getNodesSearched() < miniMax.getNodesSearched());
+        assertTrue(alphaBeta.getCutOffsProduced() > 0);
+    }
+
+    @Test
+    public void testFoolsMate() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "f2", "f3");
+        board = play(board, "e7", "e5");
+        board = play(board, "g2", "g4");
+        final Move bestMove = Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("d8"),
+                BoardUtils.getCoordinateAtPosition("h4"));
+        assertEquals(new AlphaBeta(4).execute(board), bestMove);
+    }
+
+    // the Board and the SearchBoard are scored the same, also with pinned pieces and checks on the board
+    // the castled bonus is only known to the Board so the games stop looking once someone castles
+    @Test
+    public void testEvaluationsAgree() {
+        final StandardBoardEvaluator evaluator = new StandardBoardEvaluator();
+        final Random random = new Random(11);
+        for (int game = 0; game < 10; game++) {
+            Board board = Board.createStandardBoard();
+            for (int ply = 0; ply < 60 && !board.currentPlayer().getLegalMoves().isEmpty() &&
+                    !board.whitePlayer().isCastled() && !board.blackPlayer().isCastled(); ply++) {
+                assertEquals(evaluator.evaluate(board, 0), evaluator.evaluate(new SearchBoard(board), 0));
+                final List<Move> moves = new ArrayList<>(board.currentPlayer().getLegalMoves());
+                board = moves.get(random.nextInt(moves.size())).execute();
+            }
+        }
+        // the rook on e2 is pinned by the queen on e8, once it is gone the white king is in check
+        final Builder builder = new Builder();
+        builder.setPiece(King.createKing(Alliance.BLACK, 0, false, false));
+        builder.setPiece(Queen.createQueen(Alliance.BLACK, 4));
+        builder.setPiece(Rook.createRook(Alliance.WHITE, 52));
+        builder.setPiece(King.createKing(Alliance.WHITE, 60, false, false));
+        builder.setMoveMaker(Alliance.WHITE);
+        final Board pinned = builder.build();
+        final Board check = new Builder(pinned).clearTile(52).build();
+        for (final Board board : new Board[]{pinned, check}) {
+            assertEquals(evaluator.evaluate(board, 2), evaluator.evaluate(new SearchBoard(board), 2));
+        }
+    }
+
+    // the parallel root search has to pick exactly the move the serial one picks
+    @Test
+    public void testParallelMiniMax() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        for (int depth = 1; depth <= 3; depth++) {
+            final MiniMax serial = new MiniMax(new StandardBoardEvaluator(), depth);
+            final MiniMax parallel = new MiniMax(new StandardBoardEvaluator(), depth, 4);
+            assertEquals(serial.execute(board), parallel.execute(board));
+            assertEquals(serial.getNodesSearched(), parallel.getNodesSearched());
+        }
+    }
+
+    // at depth 1 the queen takes a pawn defended by another pawn, the quiescence search sees the queen is lost right after
+    @Test
+    public void testQuiescence() {
+        final Builder builder = new Builder();
+        builder.setPiece(King.createKing(Alliance.BLACK, 6, false, false));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 20));
+        builder.setPiece(Pawn.createPawn(Alliance.BLACK, 27));
+        builder.setPiece(Queen.createQueen(Alliance.WHITE, 59));
+        builder.setPiece(King.createKing(Alliance.WHITE, 62, false, false));
+        builder.setMoveMaker(Alliance.WHITE);
+        final Board board = builder.build();
+        final Move queenTakesPawn = Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("d1"),
+                BoardUtils.getCoordinateAtPosition("d5"));
+
+        final AlphaBeta withoutQuiescence = new AlphaBeta(new StandardBoardEvaluator(), 1, null, false);
+        assertEquals(queenTakesPawn, withoutQuiescence.execute(board));
+        assertEquals(0, withoutQuiescence.getQuiescenceNodes());
+
+        final AlphaBeta withQuiescence = new AlphaBeta(new StandardBoardEvaluator(), 1, null, true);
+        assertNotEquals(queenTakesPawn, withQuiescence.execute(board));
+        assertTrue(withQuiescence.getQuiescenceNodes() > 0);
+        assertTrue(withQuiescence.getQuiescenceNodes() <= withQuiescence.getNodesSearched());
+    }
+
+    @Test
+    public void testMoveOrdering() {
+        final Builder builder = new Builder();
+        builder.setPiece(King.createKing(Alliance.BLACK, 6, false, false));
+        builder.setPiece(Queen.createQueen(Alliance.BLACK, 27));
+        builder.setPiece(Knight.createKnight(Alliance.BLACK, 29));
+        builder.setPiece(Pawn.createPawn(Alliance.WHITE, 36));
+        builder.setPiece(Queen.createQueen(Alliance.WHITE, 59));
+        builder.setPiece(King.createKing(Alliance.WHITE, 62, false, false));
+        builder.setMoveMaker(Alliance.WHITE);
+        final SearchBoard board = new SearchBoard(builder.build());
+        final int pawnTakesQueen = SearchBoard.encode(36, 27, SearchBoard.CAPTURE);
+        final int queenTakesQueen = SearchBoard.encode(59, 27, SearchBoard.CAPTURE);
+        final int pawnTakesKnight = SearchBoard.encode(36, 29, SearchBoard.CAPTURE);
+        final int kingMove = SearchBoard.encode(62, 63, SearchBoard.QUIET);
+
+        final MoveOrdering moveOrdering = new MoveOrdering();
+        final int[] moves = new int[SearchBoard.MAX_MOVES];
+        int numMoves = board.generateMoves(moves);
+        moveOrdering.orderMoves(board, moves, numMoves, SearchBoard.NO_MOVE);
+        assertEquals(pawnTakesQueen, moves[0]);
+        assertEquals(queenTakesQueen, moves[1]);
+        assertEquals(pawnTakesKnight, moves[2]);
+
+        // the table move goes first and a killer goes right after the captures
+        moveOrdering.recordCutoff(board, kingMove, 3);
+        numMoves = board.generateMoves(moves);
+        moveOrdering.orderMoves(board, moves, numMoves, pawnTakesKnight);
+        assertEquals(pawnTakesKnight, moves[0]);
+        assertEquals(pawnTakesQueen, moves[1]);
+        assertEquals(queenTakesQueen, moves[2]);
+        assertEquals(kingMove, moves[3]);
+
+        // a knight and a rook can both take the queen, the knight goes first
+        final Builder attackersBuilder = new Builder();
+        attackersBuilder.setPiece(King.createKing(Alliance.BLACK, 6, false, false));
+        attackersBuilder.setPiece(Queen.createQueen(Alliance.BLACK, 27));
+        attackersBuilder.setPiece(Rook.createRook(Alliance.WHITE, 59));
+        attackersBuilder.setPiece(Knight.createKnight(Alliance.WHITE, 37));
+        attackersBuilder.setPiece(King.createKing(Alliance.WHITE, 62, false, false));
+        attackersBuilder.setMoveMaker(Alliance.WHITE);
+        final SearchBoard attackersBoard = new SearchBoard(attackersBuilder.build());
+        final int knightTakesQueen = SearchBoard.encode(37, 27, SearchBoard.CAPTURE);
+        final int rookTakesQueen = SearchBoard.encode(59, 27, SearchBoard.CAPTURE);
+        // handed over rook first, the generator would already put the knight in front
+        final int[] captures = {rookTakesQueen, knightTakesQueen};
+        new MoveOrdering().orderMoves(attackersBoard, captures, captures.length, SearchBoard.NO_MOVE);
+        assertEquals(knightTakesQueen, captures[0]);
+        assertEquals(rookTakesQueen, captures[1]);
+    }
+
+    @Test
+    public void testIterativeDeepeningFoolsMate() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "f2", "f3");
+        board = play(board, "e7", "e5");
+        board = play(board, "g2", "g4");
+        final Move bestMove = Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("d8"),
+                BoardUtils.getCoordinateAtPosition("h4"));
+        final IterativeDeepening iterativeDeepening = new IterativeDeepening(new StandardBoardEvaluator(), 4,
+                IterativeDeepening.NO_BUDGET, IterativeDeepening.NO_BUDGET, new TranspositionTable());
+        assertEquals(bestMove, iterativeDeepening.execute(board));
+        assertEquals(4, iterativeDeepening.getDepthReached());
+    }
+
+    @Test
+    public void testIterativeDeepeningBudgets() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "e7", "e5");
+        // stopping on the node budget in the middle of a search still returns the move of the last finished one
+        final IterativeDeepening nodeLimited = new IterativeDeepening(new StandardBoardEvaluator(), 64,
+                IterativeDeepening.NO_BUDGET, 20000, new TranspositionTable());
+        final Move move = nodeLimited.execute(board);
+        assertTrue(board.currentPlayer().makeMove(move).getMoveStatus().isDone());
+        assertTrue(nodeLimited.getDepthReached() >= 1 && nodeLimited.getDepthReached() < 64);
+        assertTrue(nodeLimited.getNodesSearched() <= 20000 + 100);
+
+        final long startTime = System.currentTimeMillis();
+        final IterativeDeepening timeLimited = new IterativeDeepening(200);
+        assertTrue(board.currentPlayer().makeMove(timeLimited.execute(board)).getMoveStatus().isDone());
+        assertTrue(System.currentTimeMillis() - startTime < 2000);
+        assertTrue(timeLimited.getDepthReached() >= 1);
+    }
+
+    @Test
+    public void testLazySMPFoolsMate() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "f2", "f3");
+        board = play(board, "e7", "e5");
+        board = play(board, "g2", "g4");
+        final Move bestMove = Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("d8"),
+                BoardUtils.getCoordinateAtPosition("h4"));
+        final LazySMP lazySMP = new LazySMP(new StandardBoardEvaluator(), 4, 4,
+                IterativeDeepening.NO_BUDGET, new TranspositionTable());
+        assertEquals(bestMove, lazySMP.execute(board));
+        assertEquals(4, lazySMP.getDepthReached());
+    }
+
+    // with any number of threads the search reaches the depth asked for and plays a legal move
+    @Test
+    public void testLazySMPReachesDepthWithAnyThreadCount() {
+        final Board board = scalingBoard();
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() && threads <= 8; threads *= 2) {
+            final LazySMP lazySMP = new LazySMP(new StandardBoardEvaluator(), threads, 4,
+                    IterativeDeepening.NO_BUDGET, new TranspositionTable());
+            final Move move = lazySMP.execute(board);
+            assertTrue(board.currentPlayer().makeMove(move).getMoveStatus().isDone());
+            assertEquals(4, lazySMP.getDepthReached());
+            assertTrue(lazySMP.getNodesPerSecond() > 0);
+            assertTrue(lazySMP.getSearchTime() >= 0);
+        }
+    }
+
+    // the scaling report has a line per thread count, measured against the single thread run
+    @Test
+    public void testLazySMPScalingReport() {
+        final int maxThreads = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        final List<String> report = LazySMP.measureScaling(scalingBoard(), maxThreads, 4);
+        assertEquals(Integer.numberOfTrailingZeros(Integer.highestOneBit(maxThreads)) + 1, report.size());
+        assertTrue(report.get(0), report.get(0).startsWith("threads = 1, depth = 4,") && report.get(0).contains("speedup = 1.00"));
+        for (final String line : report) {
+            assertTrue(line, line.contains("depth = 4,") && line.contains("speedup = ") && line.contains("nps = "));
+        }
+    }
+
+    private static Board scalingBoard() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "e7", "e5");
+        return play(board, "g1", "f3");
+    }
+
+    // once every ply has its buffer a search walks the whole tree without allocating anything
+    @Test
+    public void testSearchDoesNotAllocate() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final AlphaBeta alphaBeta = new AlphaBeta(new StandardBoardEvaluator(), 4, null, true);
+        final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        // the first search allocates the buffers of every ply it reaches
+        final int value = alphaBeta.min(searchBoard, 4, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        assertEquals(value, alphaBeta.min(searchBoard, 4, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("search allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
@@ -0,0 +1,139 @@
+package com.tests.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.ai.AlphaBeta;
+import com.chess.engine.player.ai.MiniMax;
+import com.chess.engine.player.ai.StandardBoardEvaluator;
+import com.chess.engine.player.ai.TranspositionTable;
+import com.chess.engine.player.ai.TranspositionTable.ReplacementScheme;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tests.chess.TestUtils.play;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestTranspositionTable {
+
+    @Test
+    public void testStoreAndProbe() {
+        final TranspositionTable table = new TranspositionTable(1, ReplacementScheme.DEPTH_PREFERRED);
+        assertEquals(TranspositionTable.NOT_FOUND, table.probe(42L));
+        table.store(42L, 3, -150, TranspositionTable.LOWER_BOUND, 1234);
+        final long entry = table.probe(42L);
+        assertTrue(entry != TranspositionTable.NOT_FOUND);
+        assertEquals(3, TranspositionTable.getDepth(entry));
+        assertEquals(-150, TranspositionTable.getScore(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+        assertEquals(1234, TranspositionTable.getBestMove(entry));
+        assertEquals(1, table.getHits());
+        assertEquals(1, table.getMisses());
+        // 1 MB of 16 byte entries
+        assertEquals(65536, table.getCapacity());
+    }
+
+    @Test
+    public void testReplacementSchemes() {
+        final TranspositionTable depthPreferred = new TranspositionTable(1, ReplacementScheme.DEPTH_PREFERRED);
+        final TranspositionTable alwaysReplace = new TranspositionTable(1, ReplacementScheme.ALWAYS_REPLACE);
+        // two keys sharing the same slot
+        final long key = 7L;
+        final long otherKey = key + depthPreferred.getCapacity();
+        for (final TranspositionTable table : new TranspositionTable[] {depthPreferred, alwaysReplace}) {
+            table.store(key, 5, 10, TranspositionTable.EXACT, 1);
+            table.store(otherKey, 2, 20, TranspositionTable.EXACT, 2);
+        }
+        assertTrue(depthPreferred.probe(key) != TranspositionTable.NOT_FOUND);
+        assertEquals(TranspositionTable.NOT_FOUND, depthPreferred.probe(otherKey));
+        assertEquals(1, depthPreferred.getCollisions());
+        assertEquals(TranspositionTable.NOT_FOUND, alwaysReplace.probe(key));
+        assertTrue(alwaysReplace.probe(otherKey) != TranspositionTable.NOT_FOUND);
+        assertEquals(1, alwaysReplace.getCollisions());
+    }
+
+    // threads hammering a tiny table must never read an entry that belongs to another key
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final TranspositionTable table = new TranspositionTable(1, ReplacementScheme.ALWAYS_REPLACE);
+        final AtomicInteger badEntries = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread(() -> {
+                final Random random = new Random(seed);
+                for (int i = 0; i < 1000000; i++) {
+                    // few enough keys that the threads keep writing over each other
+                    final long key = random.nextInt(1 << 20) * 0x9E3779B97F4A7C15L;
+                    table.store(key, (int) (key >>> 58), (int) (key >>> 16), TranspositionTable.EXACT, (int) key & 0xFFFF);
+                    final long entry = table.probe(key);
+                    if (entry != TranspositionTable.NOT_FOUND &&
+                            (TranspositionTable.getScore(entry) != (int) (key >>> 16) ||
+                             TranspositionTable.getBestMove(entry) != ((int) key & 0xFFFF) ||
+                             TranspositionTable.getDepth(entry) != (int) (key >>> 58))) {
+                        badEntries.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, badEntries.get());
+        assertTrue(table.getHits() > 0);
+    }
+
+    @Test
+    public void testAlphaBetaWithTable() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        board = play(board, "g1", "f3");
+        final TranspositionTable table = new TranspositionTable();
+        final AlphaBeta withTable = new AlphaBeta(new StandardBoardEvaluator(), 4, table);
+        final AlphaBeta withoutTable = new AlphaBeta(new StandardBoardEvaluator(), 4);
+        assertEquals(withoutTable.execute(board), withTable.execute(board));
+        assertTrue(withTable.getNodesSearched() < withoutTable.getNodesSearched());
+        assertTrue(table.getHits() > 0);
+        // searching the same position again is mostly answered by the table
+        final long nodesSearched = withTable.getNodesSearched();
+        withTable.execute(board);
+        assertTrue(withTable.getNodesSearched() < nodesSearched);
+    }
+
+    // a fresh table only saves the work on transpositions, the scores and the move stay those of the plain search
+    @Test
+    public void testMiniMaxWithTable() {
+        Board board = Board.createStandardBoard();
+        board = play(board, "e2", "e4");
+        board = play(board, "d7", "d5");
+        board = play(board, "g1", "f3");
+        Board foolsMate = Board.createStandardBoard();
+        foolsMate = play(foolsMate, "f2", "f3");
+        foolsMate = play(foolsMate, "e7", "e5");
+        foolsMate = play(foolsMate, "g2", "g4");
+        for (final Board position : new Board[]{board, play(board, "d5", "e4"), foolsMate}) {
+            for (int depth = 1; depth <= 3; depth++) {
+                final MiniMax plain = new MiniMax(new StandardBoardEvaluator(), depth);
+                final MiniMax withTable = new MiniMax(new StandardBoardEvaluator(), depth, new TranspositionTable());
+                assertEquals(rootScore(plain, position, depth), rootScore(withTable, position, depth));
+                final MiniMax withFreshTable = new MiniMax(new StandardBoardEvaluator(), depth, new TranspositionTable());
+                assertEquals(plain.execute(position), withFreshTable.execute(position));
+                assertTrue(withFreshTable.getNodesSearched() <= plain.getNodesSearched());
+            }
+        }
+        assertEquals(Move.MoveFactory.createMove(foolsMate, BoardUtils.getCoordinateAtPosition("d8"),
+                BoardUtils.getCoordinateAtPosition("h4")),
+                new MiniMax(new StandardBoardEvaluator(), 3, new TranspositionTable()).execute(foolsMate));
+    }
+
+    private static int rootScore(final MiniMax miniMax, final Board board, final int depth) {
+        final SearchBoard searchBoard = new SearchBoard(board);
+        return board.currentPlayer().getAlliance().isWhite() ? miniMax.max(searchBoard, depth) : miniMax.min(searchBoard, depth);
+    }
+}
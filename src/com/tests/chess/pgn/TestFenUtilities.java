@@ -0,0 +1,155 @@
+package com.tests.chess.pgn;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.SearchBoard;
+import com.chess.pgn.FenUtilities;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.tests.chess.TestUtils.perft;
+import static com.tests.chess.TestUtils.play;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestFenUtilities {
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE_FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void testStandardBoard() {
+        final Board board = FenUtilities.createGameFromFEN(START_FEN);
+        final Board standardBoard = Board.createStandardBoard();
+        assertEquals(standardBoard.toString(), board.toString());
+        assertEquals(standardBoard.getZobristHash(), board.getZobristHash());
+        assertEquals(standardBoard.getCastlingRights(), board.getCastlingRights());
+        assertEquals(Alliance.WHITE, board.currentPlayer().getAlliance());
+        assertEquals(20, board.currentPlayer().getLegalMoves().size());
+        assertEquals(0, board.getHalfMoveClock());
+        assertEquals(1, board.getFullMoveNumber());
+        assertNull(board.getEnPassantPawn());
+    }
+
+    // a smoke check that the parsed castling rights come through to the move generator
+    // the deeper published counts are checked in TestBoard
+    @Test
+    public void testPerft() {
+        assertEquals(48, perft(new SearchBoard(FenUtilities.createGameFromFEN(KIWIPETE_FEN)), 1));
+    }
+
+    @Test
+    public void testEnPassantAndCastling() {
+        final Board board = FenUtilities.createGameFromFEN("r3k2r/pppp1ppp/8/8/3pP3/8/PPP2PPP/R3K2R b Kq e3 0 12");
+        assertEquals(BoardUtils.getCoordinateAtPosition("e4"), board.getEnPassantPawn().getPiecePosition());
+        assertEquals(BoardUtils.WHITE_KING_SIDE_CASTLE | BoardUtils.BLACK_QUEEN_SIDE_CASTLE, board.getCastlingRights());
+        assertEquals(12, board.getFullMoveNumber());
+        boolean foundEnPassant = false;
+        boolean foundCastle = false;
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            foundEnPassant |= move instanceof Move.PawnEnPassantAttackMove;
+            foundCastle |= move.isCastlingMove();
+        }
+        assertTrue(foundEnPassant);
+        assertTrue(foundCastle);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final String[] fens = {
+                START_FEN,
+                KIWIPETE_FEN,
+                "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3",
+                "8/8/4k3/8/2p5/8/B2K4/8 b - - 13 57",
+                "7k/8/8/8/8/8/8/K6R b - - 0 2147483647"
+        };
+        for (final String fen : fens) {
+            assertEquals(fen, FenUtilities.parseFEN(FenUtilities.createGameFromFEN(fen)));
+        }
+    }
+
+    // the halfmove clock restarts on pawn moves and captures and the fullmove number goes up after black
+    @Test
+    public void testMoveCounters() {
+        Board board = FenUtilities.createGameFromFEN(START_FEN);
+        board = play(board, "g1", "f3");
+        assertEquals(1, board.getHalfMoveClock());
+        assertEquals(1, board.getFullMoveNumber());
+        board = play(board, "g8", "f6");
+        assertEquals(2, board.getHalfMoveClock());
+        assertEquals(2, board.getFullMoveNumber());
+        board = play(board, "e2", "e4");
+        assertEquals(0, board.getHalfMoveClock());
+        board = play(board, "f6", "e4");
+        assertEquals(0, board.getHalfMoveClock());
+        assertEquals(3, board.getFullMoveNumber());
+    }
+
+    // writing into a caller's builder or writer appends the same record parseFEN returns
+    // and every position of a game survives being written and read back
+    @Test
+    public void testAppendFEN() throws IOException {
+        final Random random = new Random(7);
+        Board board = FenUtilities.createGameFromFEN(KIWIPETE_FEN);
+        for (int i = 0; i < 120 && !board.currentPlayer().getLegalMoves().isEmpty(); i++) {
+            final String fen = FenUtilities.parseFEN(board);
+            final StringBuilder builder = new StringBuilder("fen: ");
+            FenUtilities.appendFEN(board, builder);
+            assertEquals("fen: " + fen, builder.toString());
+            final StringWriter writer = new StringWriter();
+            FenUtilities.appendFEN(board, writer);
+            assertEquals(fen, writer.toString());
+
+            final Board parsedBoard = FenUtilities.createGameFromFEN(fen);
+            assertEquals(board.getZobristHash(), parsedBoard.getZobristHash());
+            assertEquals(fen, FenUtilities.parseFEN(parsedBoard));
+
+            final List<Move> moves = new ArrayList<>(board.currentPlayer().getLegalMoves());
+            board = moves.get(random.nextInt(moves.size())).execute();
+        }
+        assertTrue(board.getFullMoveNumber() > 1);
+    }
+
+    @Test
+    public void testInvalidFEN() {
+        final String[] fens = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - a 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/ w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/8 w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/36/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "8/8/8/8/8/8/8/8 w - - 0 1",
+                "4k3/8/8/8/8/8/8/8 w - - 0 1",
+                "K6K/8/8/8/8/8/8/k7 w - - 0 1",
+                "kk6/8/8/8/8/8/8/7K w - - 0 1",
+                "P3k3/8/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/p3K3 w - - 0 1",
+                "7k/8/8/8/8/8/8/K6R w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K3 w - - 99999999999 1",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 2147483648"
+        };
+        for (final String fen : fens) {
+            try {
+                FenUtilities.createGameFromFEN(fen);
+                fail("accepted " + fen);
+            } catch (final IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.tests.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.PGNGame;
+import com.chess.pgn.PGNImporter;
+import com.chess.pgn.PGNReader;
+import com.chess.pgn.PositionIndex;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestPGNImporter {
+
+    private static final String[] GAMES = {
+            "[Event \"Ruy Lopez\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 {Morphy defence} 4. Ba4 Nf6 1-0\n",
+            "[Event \"Sicilian\"]\n[Result \"0-1\"]\n\n1. e4 c5 2. Nf3 d6 (2... Nc6 3. d4) 3. d4 cxd4 0-1\n",
+            "[Event \"Broken\"]\n[Result \"*\"]\n\n1. e4 e5 2. Nf6 *\n",
+            "[Event \"Queen's Gambit\"]\r\n[Result \"1/2-1/2\"]\r\n\r\n1. d4 d5 2. c4 e6 3. Nc3 Nf6 1/2-1/2\r\n",
+            "[Event \"Italian\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. c3 Nf6 5. d4 exd4 6. cxd4 Bb4+ 1-0\n",
+            // a comment with a blank line and a line that looks like a tag, a chunk must not start in there
+            "[Event \"Annotated\"]\n[Result \"0-1\"]\n\n1. d4 {The start of a long note\n\n[Event \"inside the note\"]\n\n" +
+                    "and its end} Nf6 2. c4 e6 3. Nc3 Bb4 0-1\n"
+    };
+
+    // the index has to be the same whatever the number of chunks and threads
+    // and the same as reading the whole file with a single PGNReader
+    @Test
+    public void testParallelImport() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 240; i++) {
+            text.append(GAMES[(i * 7) % GAMES.length]).append('\n');
+        }
+        final Path path = Files.createTempFile("games", ".pgn");
+        try {
+            Files.write(path, text.toString().getBytes(StandardCharsets.UTF_8));
+
+            final PositionIndex expected = new PositionIndex(8);
+            final PGNReader reader = new PGNReader(new StringReader(text.toString()), diagnostic -> { });
+            PGNGame game;
+            while ((game = reader.nextGame()) != null) {
+                expected.addGame(game);
+            }
+            assertEquals(200, expected.getGames());
+
+            for (final int chunkSize : new int[]{1 << 20, 4096, 300, 97, 1}) {
+                final List<String> diagnostics = new ArrayList<>();
+                final PositionIndex index = PGNImporter.importFile(path, 8, 3, chunkSize, diagnostics::add);
+                assertEquals(expected.getGames(), index.getGames());
+                assertEquals(40, index.getSkippedGames());
+                // the skipped games and the summary of the import
+                assertEquals(41, diagnostics.size());
+                assertTrue(diagnostics.get(40).startsWith("Imported"));
+                assertEquals(expected.getPositions(), index.getPositions());
+            }
+
+            final PositionIndex.PositionStats start = expected.getStats(Board.createStandardBoard());
+            assertEquals(200, start.getGames());
+            assertEquals(80, start.getWhiteWins());
+            assertEquals(40, start.getDraws());
+            assertEquals(80, start.getBlackWins());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    // a game that comes back to a position still went through it only once
+    @Test
+    public void testRepeatedPosition() throws IOException {
+        final PGNReader reader = new PGNReader(new StringReader(
+                "[Result \"1/2-1/2\"]\n\n1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1 Ng8 1/2-1/2\n"), diagnostic -> { });
+        final PositionIndex index = new PositionIndex(20);
+        index.addGame(reader.nextGame());
+        assertEquals(1, index.getStats(Board.createStandardBoard()).getGames());
+        assertEquals(1, index.getStats(Board.createStandardBoard()).getDraws());
+        assertEquals(4, index.getPositions().size());
+    }
+}
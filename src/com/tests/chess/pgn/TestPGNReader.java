@@ -0,0 +1,193 @@
+package com.tests.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.pgn.AlgebraicNotation;
+import com.chess.pgn.FenUtilities;
+import com.chess.pgn.PGNGame;
+import com.chess.pgn.PGNReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPGNReader {
+
+    private static final String GAMES =
+            "[Event \"Casual\"]\n" +
+            "[White \"Morphy, Paul\"]\n" +
+            "[Black \"Duke Karl / Count Isouard\"]\n" +
+            "[Result \"1-0\"]\n" +
+            "\n" +
+            "1.e4 e5 2.Nf3 d6 3.d4 Bg4 {This is a weak move\n" +
+            "already.} 4.dxe5 Bxf3 5.Qxf3 dxe5 6.Bc4 Nf6 7.Qb3 Qe7 8.Nc3 c6 9.Bg5 b5 $6\n" +
+            "10.Nxb5 cxb5 11.Bxb5+ Nbd7 12.O-O-O Rd8 13.Rxd7 Rxd7 14.Rd1 Qe6 (14...Qb4 15.Bxf6\n" +
+            "(15.Qxb4 Bxb4) gxf6) 15.Bxd7+ Nxd7 16.Qb8+ Nxb8 17.Rd8# 1-0\n" +
+            "\n" +
+            "[Event \"Broken\"]\n" +
+            "[White \"A\"]\n" +
+            "[Black \"B\"]\n" +
+            "\n" +
+            "1. e4 e5 2. Ke3 1-0\n" +
+            "\n" +
+            "[Event \"Study\"]\n" +
+            "[SetUp \"1\"]\n" +
+            "[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 40\"]\n" +
+            "\n" +
+            "40. e4 Kd7 41. e5 ; a line comment (with a parenthesis\n" +
+            "41... Ke6 42. Kf2 Kxe5 1/2-1/2\n" +
+            "\n" +
+            "[Event \"Bad tag\n" +
+            "\n" +
+            "1. d4 *\n" +
+            "\n" +
+            "[Event \"Unfinished\"]\n" +
+            "\n" +
+            "1. d4 d5 2. c4\n";
+
+    @Test
+    public void testReadGames() throws IOException {
+        final List<String> diagnostics = new ArrayList<>();
+        final PGNReader reader = new PGNReader(new StringReader(GAMES), diagnostics::add);
+
+        final PGNGame morphy = reader.nextGame();
+        assertEquals("Morphy, Paul", morphy.getTag("White"));
+        assertEquals("1-0", morphy.getResult());
+        assertEquals(33, morphy.getMoves().size());
+        assertTrue(morphy.getFinalBoard().currentPlayer().isInCheckMate());
+
+        final PGNGame study = reader.nextGame();
+        assertEquals("Study", study.getTag("Event"));
+        assertEquals("1/2-1/2", study.getResult());
+        assertEquals(40, study.getStartBoard().getFullMoveNumber());
+        assertEquals("8/8/8/4k3/8/8/5K2/8 w - - 0 43", FenUtilities.parseFEN(study.getFinalBoard()));
+
+        final PGNGame unfinished = reader.nextGame();
+        assertEquals("*", unfinished.getResult());
+        assertEquals(3, unfinished.getMoves().size());
+
+        assertNull(reader.nextGame());
+        assertEquals(3, reader.getGamesRead());
+        assertEquals(2, reader.getGamesSkipped());
+        assertEquals(2, diagnostics.size());
+        assertTrue(diagnostics.get(0), diagnostics.get(0).contains("line 11") && diagnostics.get(0).contains("Ke3"));
+        assertTrue(diagnostics.get(1), diagnostics.get(1).contains("line 24"));
+        assertEquals(33 + 6 + 3, reader.getMovesRead());
+    }
+
+    // a game that cannot be read is skipped and reported, whatever is wrong with it, and the next game is still read
+    @Test
+    public void testSkipBrokenGames() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        text.append("[Event \"No kings\"]\n[FEN \"8/8/8/8/8/8/8/8 w - - 0 1\"]\n\n1. e4 *\n\n");
+        text.append("[Event \"King in check\"]\n[FEN \"7k/8/8/8/8/8/8/K6R w - - 0 1\"]\n\n1. Rh2 *\n\n");
+        text.append("[Event \"Long line\"]\n\n1. e4 {");
+        for (int i = 0; i < PGNReader.MAX_LINE_LENGTH; i++) {
+            text.append('x');
+        }
+        text.append("} e5 *\n\n[Event \"Many tags\"]\n");
+        for (int i = 0; i <= PGNReader.MAX_TAGS; i++) {
+            text.append("[Tag").append(i).append(" \"").append(i).append("\"]\n");
+        }
+        text.append("\n1. e4 *\n\n[Event \"Good\"]\r\n\r\n1. e4 e5 {a comment\r\n[with a bracket]} 2. Nf3 1-0\r\n");
+
+        final List<String> diagnostics = new ArrayList<>();
+        final PGNReader reader = new PGNReader(new StringReader(text.toString()), diagnostics::add);
+        final PGNGame game = reader.nextGame();
+        assertEquals("Good", game.getTag("Event"));
+        assertEquals(3, game.getMoves().size());
+        assertNull(reader.nextGame());
+        assertEquals(4, reader.getGamesSkipped());
+        assertEquals(4, diagnostics.size());
+        assertTrue(diagnostics.get(0), diagnostics.get(0).contains("Invalid FEN"));
+        assertTrue(diagnostics.get(1), diagnostics.get(1).contains("Invalid FEN"));
+        assertTrue(diagnostics.get(2), diagnostics.get(2).contains("longer than"));
+        assertTrue(diagnostics.get(3), diagnostics.get(3).contains("tags"));
+    }
+
+    @Test
+    public void testSANMoves() {
+        Board board = FenUtilities.createGameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(BoardUtils.getCoordinateAtPosition("a6"),
+                AlgebraicNotation.createMoveFromSAN(board, "Bxa6").getDestinationCoordinate());
+        assertTrue(AlgebraicNotation.createMoveFromSAN(board, "O-O-O").isCastlingMove());
+        assertTrue(AlgebraicNotation.createMoveFromSAN(board, "0-0+").isCastlingMove());
+        assertEquals(BoardUtils.getCoordinateAtPosition("c3"),
+                AlgebraicNotation.createMoveFromSAN(board, "Nd1!?").getCurrentCoordinate());
+        assertEquals(BoardUtils.getCoordinateAtPosition("g2"),
+                AlgebraicNotation.createMoveFromSAN(board, "gxh3").getCurrentCoordinate());
+        for (final String san : new String[]{"Nf3", "Ke3", "e5x", "Qxa8", "axb1=Q", "Zf3", "O-O-O-O",
+                "Nxd1", "xh3", "Nd1+#", "Nd1!!!", "Nd1!+"}) {
+            try {
+                AlgebraicNotation.createMoveFromSAN(board, san);
+                fail("accepted " + san);
+            } catch (final IllegalArgumentException expected) {
+            }
+        }
+
+        // the knights on g1 and g5 can both go to f3
+        board = FenUtilities.createGameFromFEN("4k3/8/8/6N1/8/8/8/1N2K1N1 w - - 0 1");
+        assertEquals(BoardUtils.getCoordinateAtPosition("g1"),
+                AlgebraicNotation.createMoveFromSAN(board, "N1f3").getCurrentCoordinate());
+        assertEquals(BoardUtils.getCoordinateAtPosition("g5"),
+                AlgebraicNotation.createMoveFromSAN(board, "Ng5f3").getCurrentCoordinate());
+        try {
+            AlgebraicNotation.createMoveFromSAN(board, "Nf3");
+            fail("accepted an ambiguous move");
+        } catch (final IllegalArgumentException expected) {
+        }
+
+        board = FenUtilities.createGameFromFEN("8/1P2k3/8/8/8/8/8/4K3 w - - 0 1");
+        final Move promotion = AlgebraicNotation.createMoveFromSAN(board, "b8=Q+");
+        assertTrue(promotion instanceof Move.PawnPromotion);
+        assertEquals(promotion, AlgebraicNotation.createMoveFromSAN(board, "b8Q"));
+    }
+
+    @Test
+    public void testWriteMoves() {
+        Board board = FenUtilities.createGameFromFEN("4k3/8/8/6N1/8/8/8/1N2K1N1 w - - 0 1");
+        assertEquals("N1f3", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "g1f3")));
+        assertEquals("N5f3", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "g5f3")));
+        assertEquals("Nd2", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "b1d2")));
+
+        board = FenUtilities.createGameFromFEN("4k3/1P6/8/8/8/8/8/R3K2R w KQ - 0 1");
+        assertEquals("b8=Q+", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "b7b8q")));
+        assertEquals("O-O", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "e1g1")));
+        assertEquals("O-O-O", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "e1c1")));
+        assertEquals("Ra8+", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "a1a8")));
+        assertEquals("e1g1", AlgebraicNotation.toUCI(AlgebraicNotation.createMoveFromSAN(board, "O-O")));
+        for (final String uci : new String[]{"b7b8", "a1a9", "e1e3", "e1g1q"}) {
+            try {
+                AlgebraicNotation.createMoveFromUCI(board, uci);
+                fail("accepted " + uci);
+            } catch (final IllegalArgumentException expected) {
+            }
+        }
+
+        board = FenUtilities.createGameFromFEN("6k1/5ppp/8/8/8/8/8/R3K3 w Q - 0 1");
+        assertEquals("Ra8#", AlgebraicNotation.toSAN(AlgebraicNotation.createMoveFromUCI(board, "a1a8")));
+
+        // every legal move along random games has to come back from its own SAN and UCI
+        final Random random = new Random(42);
+        for (int game = 0; game < 20; game++) {
+            board = FenUtilities.createGameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            for (int ply = 0; ply < 80 && !board.currentPlayer().getLegalMoves().isEmpty(); ply++) {
+                final List<Move> legalMoves = new ArrayList<>(board.currentPlayer().getLegalMoves());
+                for (final Move move : legalMoves) {
+                    assertEquals(move, AlgebraicNotation.createMoveFromSAN(board, AlgebraicNotation.toSAN(move)));
+                    assertEquals(move, AlgebraicNotation.createMoveFromUCI(board, AlgebraicNotation.toUCI(move)));
+                }
+                board = legalMoves.get(random.nextInt(legalMoves.size())).execute();
+            }
+        }
+    }
+}